@@ -1,17 +1,34 @@
 package com.ec.auth.aspectj;
 
+import com.ec.auth.trace.RequestTrace;
+import com.ec.auth.trace.TraceStage;
 import com.ec.common.annotation.DataScope;
+import com.ec.common.constant.Constants;
 import com.ec.common.core.domain.BaseEntity;
 import com.ec.common.core.domain.entity.SysRole;
 import com.ec.common.core.domain.entity.SysUser;
 import com.ec.common.core.domain.model.LoginUser;
+import com.ec.common.core.redis.RedisCache;
+import com.ec.common.core.text.Convert;
 import com.ec.common.utils.SecurityUtils;
+import com.ec.common.utils.PageUtils;
 import com.ec.common.utils.StringUtils;
+import com.ec.sys.service.ISysDeptService;
+import com.ec.sys.service.ISysRoleService;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * 数据过滤处理
  *
@@ -50,54 +67,130 @@ public class DataScopeAspect {
      */
     public static final String DATA_SCOPE = "dataScope";
 
+    /**
+     * 每个租户缓存的数据范围条数上限
+     */
+    private static final int MAX_CACHED_SCOPES = 10000;
+
+    @Autowired
+    private ISysDeptService deptService;
+
+    @Autowired
+    private ISysRoleService roleService;
+
+    @Autowired
+    private RedisCache redisCache;
+
+    /**
+     * 各租户已解析的数据范围部门ID，按数据权限版本失效
+     */
+    private final Map<String, ScopeCache> scopeCaches = new ConcurrentHashMap<>();
+
     /**
      * 数据范围过滤
+     * <p>
+     * 用户的角色先归并为 全部数据、部门ID集合、仅本人 三种形式，再生成 dept_id IN (...) 和 user_id = ? 条件，
+     * 不再在SQL中嵌套 sys_role_dept、sys_dept 子查询。部门ID集合按 部门 + 角色 缓存，
+     * 角色数据权限、部门变更后递增租户的数据权限版本使缓存失效。
+     * </p>
      *
      * @param joinPoint 切点
      * @param user      用户
      * @param userAlias 别名
      */
-    public static void dataScopeFilter(JoinPoint joinPoint, SysUser user, String deptAlias, String userAlias) {
-        StringBuilder sqlString = new StringBuilder();
-
+    public void dataScopeFilter(JoinPoint joinPoint, SysUser user, String deptAlias, String userAlias) {
+        boolean restricted = false;
+        boolean dept = false;
+        boolean deptAndChild = false;
+        boolean self = false;
+        List<Long> customRoleIds = new ArrayList<>();
         for (SysRole role : user.getRoles()) {
             String dataScope = role.getDataScope();
             if (DATA_SCOPE_ALL.equals(dataScope)) {
-                sqlString = new StringBuilder();
-                break;
+                return;
             } else if (DATA_SCOPE_CUSTOM.equals(dataScope)) {
-                sqlString.append(StringUtils.format(
-                        " OR {}.dept_id IN ( SELECT dept_id FROM sys_role_dept WHERE role_id = {} ) ", deptAlias,
-                        role.getRoleId()));
+                customRoleIds.add(role.getRoleId());
             } else if (DATA_SCOPE_DEPT.equals(dataScope)) {
-                sqlString.append(StringUtils.format(" OR {}.dept_id = {} ", deptAlias, user.getDeptId()));
+                dept = true;
             } else if (DATA_SCOPE_DEPT_AND_CHILD.equals(dataScope)) {
-                sqlString.append(StringUtils.format(
-                        " OR {}.dept_id IN ( SELECT dept_id FROM sys_dept WHERE dept_id = {} or find_in_set( {} , ancestors ) )",
-                        deptAlias, user.getDeptId(), user.getDeptId()));
+                deptAndChild = true;
             } else if (DATA_SCOPE_SELF.equals(dataScope)) {
-                if (StringUtils.isNotBlank(userAlias)) {
-                    sqlString.append(StringUtils.format(" OR {}.user_id = {} ", userAlias, user.getUserId()));
-                } else {
-                    // 数据权限为仅本人且没有userAlias别名不查询任何数据
-                    sqlString.append(" OR 1=0 ");
-                }
+                self = true;
+            } else {
+                continue;
             }
+            restricted = true;
+        }
+        if (!restricted) {
+            return;
         }
 
-        if (StringUtils.isNotBlank(sqlString.toString())) {
-            Object params = joinPoint.getArgs()[0];
-            if (StringUtils.isNotNull(params) && params instanceof BaseEntity) {
-                BaseEntity baseEntity = (BaseEntity) params;
-                baseEntity.getParams().put(DATA_SCOPE, " AND (" + sqlString.substring(4) + ")");
+        List<String> conditions = new ArrayList<>(2);
+        String deptIds = getScopeDeptIds(user.getDeptId(), dept, deptAndChild, customRoleIds);
+        if (StringUtils.isNotEmpty(deptIds)) {
+            conditions.add(StringUtils.format("{}.dept_id IN ( {} )", deptAlias, deptIds));
+        }
+        // 数据权限为仅本人且没有userAlias别名不查询任何数据
+        if (self && StringUtils.isNotBlank(userAlias)) {
+            conditions.add(StringUtils.format("{}.user_id = {}", userAlias, user.getUserId()));
+        }
+        String sqlString = conditions.isEmpty() ? "1=0" : StringUtils.join(conditions, " OR ");
+
+        Object params = joinPoint.getArgs()[0];
+        if (StringUtils.isNotNull(params) && params instanceof BaseEntity) {
+            BaseEntity baseEntity = (BaseEntity) params;
+            baseEntity.getParams().put(DATA_SCOPE, " AND (" + sqlString + ")");
+        }
+    }
+
+    /**
+     * 获取数据范围内的部门ID，逗号分隔；没有部门时返回空字符串
+     *
+     * @param deptId        用户部门ID
+     * @param dept          是否包含本部门
+     * @param deptAndChild  是否包含本部门及下级部门
+     * @param customRoleIds 自定数据权限的角色ID
+     */
+    private String getScopeDeptIds(Long deptId, boolean dept, boolean deptAndChild, List<Long> customRoleIds) {
+        if (customRoleIds.isEmpty() && (deptId == null || !dept && !deptAndChild)) {
+            return "";
+        }
+        Collections.sort(customRoleIds);
+        String key = deptId + ":" + (deptAndChild ? "C" : dept ? "D" : "") + ":" + StringUtils.join(customRoleIds, ",");
+        String tenant = SecurityUtils.getTenant();
+        long version = Convert.toLong(redisCache.getCacheObject(Constants.SYS_DATA_SCOPE_VERSION_KEY + tenant), 0L);
+        ScopeCache cache = scopeCaches.get(tenant);
+        if (cache == null || cache.version != version || cache.deptIds.size() >= MAX_CACHED_SCOPES) {
+            cache = new ScopeCache(version);
+            scopeCaches.put(tenant, cache);
+        }
+        String deptIds = cache.deptIds.get(key);
+        if (deptIds == null) {
+            Set<Long> ids = new TreeSet<>();
+            if (deptAndChild) {
+                ids.addAll(deptService.selectDeptAndChildIds(deptId));
+            } else if (dept && deptId != null) {
+                ids.add(deptId);
+            }
+            if (!customRoleIds.isEmpty()) {
+                // 切面在分页查询之前执行，查询时不能占用当前线程的分页参数
+                ids.addAll(PageUtils.withoutPage(() -> roleService.selectDeptIdsByRoleIds(customRoleIds)));
             }
+            deptIds = StringUtils.join(ids, ",");
+            cache.deptIds.put(key, deptIds);
         }
+        return deptIds;
     }
 
     @Before("@annotation(controllerDataScope)")
     public void doBefore(JoinPoint point, DataScope controllerDataScope) throws Throwable {
-        clearDataScope(point);
-        handleDataScope(point, controllerDataScope);
+        long start = RequestTrace.start();
+        try {
+            clearDataScope(point);
+            handleDataScope(point, controllerDataScope);
+        } finally {
+            RequestTrace.stop(TraceStage.ASPECT, start);
+        }
     }
 
     protected void handleDataScope(final JoinPoint joinPoint, DataScope controllerDataScope) {
@@ -123,4 +216,17 @@ public class DataScopeAspect {
             baseEntity.getParams().put(DATA_SCOPE, "");
         }
     }
+
+    /**
+     * 租户的数据范围缓存（部门 + 角色 -> 部门ID）
+     */
+    private static class ScopeCache {
+        private final long version;
+
+        private final Map<String, String> deptIds = new ConcurrentHashMap<>();
+
+        ScopeCache(long version) {
+            this.version = version;
+        }
+    }
 }
@@ -1,12 +1,13 @@
 package com.ec.auth.aspectj;
 
-import com.alibaba.fastjson.JSON;
-import com.ec.auth.manager.AsyncManager;
-import com.ec.auth.manager.factory.AsyncFactory;
+import com.ec.auth.manager.OperLogPipeline;
+import com.ec.auth.trace.RequestTrace;
+import com.ec.auth.trace.TraceStage;
 import com.ec.common.annotation.Log;
 import com.ec.common.core.domain.model.LoginUser;
 import com.ec.common.enums.BusinessStatus;
 import com.ec.common.enums.HttpMethod;
+import com.ec.common.utils.BoundedJsonWriter;
 import com.ec.common.utils.SecurityUtils;
 import com.ec.common.utils.ServletUtils;
 import com.ec.common.utils.StringUtils;
@@ -17,6 +18,7 @@ import org.aspectj.lang.annotation.AfterReturning;
 import org.aspectj.lang.annotation.Aspect;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.multipart.MultipartFile;
@@ -24,6 +26,7 @@ import org.springframework.web.servlet.HandlerMapping;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Map;
 
@@ -39,6 +42,14 @@ public class LogAspect {
     //使用指定类初始化日志对象，在日志输出的时候，可以打印出日志信息所在类
     private static final Logger log = LoggerFactory.getLogger(LogAspect.class);
 
+    /**
+     * 请求参数、返回结果、错误消息的最大记录长度
+     */
+    private static final int MAX_LENGTH = 2000;
+
+    @Autowired
+    private OperLogPipeline operLogPipeline;
+
     /**
      * 业务逻辑方法的后面增加的功能
      * value : 切入点表达式
@@ -51,7 +62,12 @@ public class LogAspect {
      */
     @AfterReturning(pointcut = "@annotation(controllerLog)",returning = "jsonResult")
     public void doAfterReturning(JoinPoint joinPoint, Log controllerLog,Object jsonResult){
-        handleLog(joinPoint,controllerLog,null,jsonResult);
+        long start = RequestTrace.start();
+        try {
+            handleLog(joinPoint, controllerLog, null, jsonResult);
+        } finally {
+            RequestTrace.stop(TraceStage.ASPECT, start);
+        }
     }
 
     protected void handleLog(final JoinPoint joinPoint, Log controllerLog, final Exception e, Object jsonResult) {
@@ -73,7 +89,7 @@ public class LogAspect {
 
             if (e != null) {
                 operLog.setStatus(BusinessStatus.FAIL.ordinal());
-                operLog.setErrorMsg(StringUtils.substring(e.getMessage(), 0, 2000));
+                operLog.setErrorMsg(StringUtils.substring(e.getMessage(), 0, MAX_LENGTH));
             }
             // 设置方法名称
             String className = joinPoint.getTarget().getClass().getName();
@@ -83,9 +99,9 @@ public class LogAspect {
             operLog.setRequestMethod(ServletUtils.getRequest().getMethod());
             // 处理设置注解上的参数
             getControllerMethodDescription(joinPoint, controllerLog, operLog, jsonResult);
-            // 保存数据库
-            String tenant = loginUser.getTenant();
-            AsyncManager.me().execute(AsyncFactory.recordOper(tenant, operLog));
+            // 保存数据库，由管道按租户批量写入
+            String tenant = loginUser != null ? loginUser.getTenant() : null;
+            operLogPipeline.offer(tenant, operLog);
         } catch (Exception exp) {
             // 记录本地异常日志
             log.error("==前置通知异常==");
@@ -96,6 +112,11 @@ public class LogAspect {
 
     /**
      * 获取注解中对方法的描述信息 用于Controller层注解
+     * <p>
+     * 请求参数与返回结果在请求线程中按长度上限序列化为快照，缓冲区只保留截断后的字符串，
+     * 不持有参数与返回对象的引用。参数与返回对象可变，延后到写入线程序列化需先深拷贝，
+     * 其开销不低于有长度上限的序列化，因此不延后。
+     * </p>
      *
      * @param log     日志
      * @param operLog 操作日志
@@ -115,7 +136,7 @@ public class LogAspect {
         }
         // 是否需要保存response，参数和值
         if (log.isSaveResponseData() && StringUtils.isNotNull(jsonResult)) {
-            operLog.setJsonResult(StringUtils.substring(JSON.toJSONString(jsonResult), 0, 2000));
+            operLog.setJsonResult(BoundedJsonWriter.toJSONString(jsonResult, MAX_LENGTH));
         }
     }
 
@@ -128,31 +149,47 @@ public class LogAspect {
     private void setRequestValue(JoinPoint joinPoint, SysOperLog operLog) throws Exception {
         String requestMethod = operLog.getRequestMethod();
         if (HttpMethod.PUT.name().equals(requestMethod) || HttpMethod.POST.name().equals(requestMethod)) {
-            String params = argsArrayToString(joinPoint.getArgs());
-            operLog.setOperParam(StringUtils.substring(params, 0, 2000));
+            Object[] params = filterArgs(joinPoint.getArgs());
+            if (params != null) {
+                operLog.setOperParam(argsArrayToString(params));
+            }
         } else {
             Map<?, ?> paramsMap = (Map<?, ?>) ServletUtils.getRequest().getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
-            operLog.setOperParam(StringUtils.substring(paramsMap.toString(), 0, 2000));
+            if (paramsMap != null) {
+                operLog.setOperParam(StringUtils.substring(paramsMap.toString(), 0, MAX_LENGTH));
+            }
+        }
+    }
+
+    /**
+     * 过滤掉空值及不需要记录的参数（文件、request、response等）
+     */
+    private Object[] filterArgs(Object[] paramsArray) {
+        if (paramsArray == null || paramsArray.length == 0) {
+            return null;
+        }
+        Object[] params = new Object[paramsArray.length];
+        int count = 0;
+        for (Object o : paramsArray) {
+            if (StringUtils.isNotNull(o) && !isFilterObject(o)) {
+                params[count++] = o;
+            }
         }
+        return count == 0 ? null : Arrays.copyOf(params, count);
     }
 
     /**
-     * 参数拼装
+     * 参数拼装，以空格分隔，超出长度上限的部分被截断
      */
     private String argsArrayToString(Object[] paramsArray) {
-        String params = "";
-        if (paramsArray != null && paramsArray.length > 0) {
-            for (Object o : paramsArray) {
-                if (StringUtils.isNotNull(o) && !isFilterObject(o)) {
-                    try {
-                        Object jsonObj = JSON.toJSON(o);
-                        params += jsonObj.toString() + " ";
-                    } catch (Exception e) {
-                    }
-                }
+        BoundedJsonWriter writer = new BoundedJsonWriter(MAX_LENGTH);
+        for (int i = 0; i < paramsArray.length && !writer.isFull(); i++) {
+            if (i > 0) {
+                writer.appendChar(' ');
             }
+            writer.appendJson(paramsArray[i]);
         }
-        return params.trim();
+        return writer.toString();
     }
 
     /**
@@ -1,12 +1,16 @@
 package com.ec.auth.aspectj;
 
+import com.ec.auth.limiter.RateLimitBucket;
+import com.ec.auth.trace.RequestTrace;
+import com.ec.auth.trace.TraceStage;
 import com.ec.common.annotation.RateLimiter;
+import com.ec.common.enums.LimitMode;
 import com.ec.common.enums.LimitType;
 import com.ec.common.exception.ServiceException;
 import com.ec.common.utils.ServletUtils;
 import com.ec.common.utils.StringUtils;
 import com.ec.common.utils.ip.IpUtils;
-import net.sf.jsqlparser.statement.select.Join;
+import com.ec.common.utils.uuid.IdUtils;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
@@ -14,6 +18,7 @@ import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Component;
@@ -21,6 +26,11 @@ import org.springframework.stereotype.Component;
 import java.lang.reflect.Method;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author 囍崽
@@ -33,20 +43,57 @@ import java.util.List;
 public class RateLimiterAspect {
     private static final Logger log = LoggerFactory.getLogger(RateLimiterAspect.class);
 
+    /**
+     * 本地令牌桶数量上限（按IP限流时key数量不可控），达到上限后新的key不再本地计数，直接由Redis判定
+     */
+    private static final int MAX_BUCKETS = 10000;
+
+    /**
+     * 达到上限时回收空闲桶的最小间隔，避免每个新key都遍历全部桶
+     */
+    private static final long SWEEP_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * 每个方法预先计算好的限流key模板
+     */
+    private final Map<Method, KeyTemplate> keyTemplates = new ConcurrentHashMap<>();
+
+    /**
+     * 限流key -> 本地令牌桶
+     */
+    private final Map<String, RateLimitBucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * 已创建（含正在创建）的本地令牌桶数量，保证不超过上限
+     */
+    private final AtomicInteger bucketCount = new AtomicInteger();
+
+    /**
+     * 上次回收空闲桶的时间
+     */
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+
     private RedisTemplate<Object, Object> redisTemplate;
 
     private RedisScript<Long> limitScript;
 
+    private RedisScript<Long> slidingWindowScript;
+
     @Autowired
     public void setRedisTemplate1(RedisTemplate<Object, Object> redisTemplate) {
         this.redisTemplate = redisTemplate;
     }
 
     @Autowired
-    public void setLimitScript(RedisScript<Long> limitScript) {
+    public void setLimitScript(@Qualifier("limitScript") RedisScript<Long> limitScript) {
         this.limitScript = limitScript;
     }
 
+    @Autowired
+    public void setSlidingWindowScript(@Qualifier("slidingWindowScript") RedisScript<Long> slidingWindowScript) {
+        this.slidingWindowScript = slidingWindowScript;
+    }
+
     /**
      * @ Before前置通知，在目标方法执行之前执行
      * 注意：如果在此回调方法中抛出异常，则目标方法不会再执行，会继续执行后置通知 -> 异常通知。
@@ -72,50 +119,182 @@ public class RateLimiterAspect {
      */
     @Before("@annotation(rateLimiter)")
     public void doBefore(JoinPoint point, RateLimiter rateLimiter){
-        String key = rateLimiter.key();
+        long start = RequestTrace.start();
+        try {
+            acquire(point, rateLimiter);
+        } finally {
+            RequestTrace.stop(TraceStage.ASPECT, start);
+        }
+    }
+
+    private void acquire(JoinPoint point, RateLimiter rateLimiter) {
         int time = rateLimiter.time();
         int count = rateLimiter.count();
         String combineKey = getCombineKey(rateLimiter, point);
+        boolean pass;
+        if (rateLimiter.mode() == LimitMode.SLIDING_WINDOW) {
+            pass = slidingWindowAcquire(combineKey, count, time);
+            RateLimitBucket bucket = getBucket(combineKey, count, time);
+            if (bucket != null) {
+                bucket.record(pass);
+            }
+        } else {
+            RateLimitBucket bucket = getBucket(combineKey, count, time);
+            if (bucket == null) {
+                // 本地令牌桶已达上限，由Redis逐次判定
+                pass = redisAcquire(combineKey, count, time);
+            } else {
+                long now = System.nanoTime();
+                if (bucket.shouldSync(now) && bucket.beginSync()) {
+                    reconcile(bucket, now);
+                }
+                pass = bucket.tryAcquire(now);
+            }
+        }
+        if (!pass) {
+            throw new ServiceException("访问过于频繁，请稍候再试");
+        }
+    }
+
+    /**
+     * 滑动窗口模式，每次请求在Redis中判定
+     */
+    private boolean slidingWindowAcquire(String combineKey, int count, int time) {
         List<Object> keys = Collections.singletonList(combineKey);
         try {
-            Long number = redisTemplate.execute(limitScript, keys, count, time);
-            if (StringUtils.isNull(number) || number.intValue() > count) {
-                throw new ServiceException("访问过于频繁，请稍候再试");
-            }
-            log.info("限制请求'{}',当前请求'{}',缓存key'{}'", count, number.intValue(), key);
-        } catch (ServiceException e) {
-            throw e;
+            Long number = redisTemplate.execute(slidingWindowScript, keys, count, time * 1000L,
+                    System.currentTimeMillis(), IdUtils.fastSimpleUUID());
+            return StringUtils.isNotNull(number) && number.intValue() <= count;
         } catch (Exception e) {
             throw new RuntimeException("服务器限流异常，请稍候再试");
         }
     }
 
     /**
+     * 本地令牌桶已满时按固定窗口逐次在Redis中判定
+     */
+    private boolean redisAcquire(String combineKey, int count, int time) {
+        try {
+            Long number = redisTemplate.execute(limitScript, Collections.singletonList(combineKey), count, time, 1L);
+            return StringUtils.isNotNull(number) && number.intValue() <= count;
+        } catch (Exception e) {
+            throw new RuntimeException("服务器限流异常，请稍候再试");
+        }
+    }
+
+    /**
+     * 将本地放行的令牌数批量累加到Redis，根据集群总量决定本地桶是否继续放行；
+     * Redis不可用时仅按本地令牌桶限流
+     */
+    private void reconcile(RateLimitBucket bucket, long now) {
+        long permits = bucket.drainPending();
+        Long global = null;
+        try {
+            global = redisTemplate.execute(limitScript, Collections.singletonList(bucket.getKey()),
+                    bucket.getCount(), bucket.getTime(), permits);
+        } catch (Exception e) {
+            bucket.restorePending(permits);
+            log.warn("限流对账失败,缓存key'{}'", bucket.getKey(), e);
+        } finally {
+            bucket.endSync(now, global);
+        }
+    }
+
+    /**
+     * 获取本地令牌桶，数量达到上限且没有可回收的空闲桶时返回空
+     */
+    private RateLimitBucket getBucket(String combineKey, int count, int time) {
+        RateLimitBucket bucket = buckets.get(combineKey);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (!reserveBucket()) {
+            return null;
+        }
+        boolean[] created = new boolean[1];
+        bucket = buckets.computeIfAbsent(combineKey, k -> {
+            created[0] = true;
+            return new RateLimitBucket(k, count, time);
+        });
+        if (!created[0]) {
+            // 其他线程已创建，归还名额
+            bucketCount.decrementAndGet();
+        }
+        return bucket;
+    }
+
+    /**
+     * 占用一个本地令牌桶名额，达到上限时按间隔回收一次空闲桶后重试
+     */
+    private boolean reserveBucket() {
+        if (bucketCount.incrementAndGet() <= MAX_BUCKETS) {
+            return true;
+        }
+        bucketCount.decrementAndGet();
+        long now = System.nanoTime();
+        long last = lastSweep.get();
+        if (now - last < SWEEP_INTERVAL || !lastSweep.compareAndSet(last, now)) {
+            return false;
+        }
+        for (Map.Entry<String, RateLimitBucket> entry : buckets.entrySet()) {
+            if (entry.getValue().isIdle(now) && buckets.remove(entry.getKey(), entry.getValue())) {
+                bucketCount.decrementAndGet();
+            }
+        }
+        if (bucketCount.incrementAndGet() <= MAX_BUCKETS) {
+            return true;
+        }
+        bucketCount.decrementAndGet();
+        return false;
+    }
+
+    /**
+     * 获取各限流key的本地统计
+     *
+     * @return 限流key -> 本地令牌桶
+     */
+    public Map<String, RateLimitBucket> getBuckets() {
+        return Collections.unmodifiableMap(buckets);
+    }
+
+    /**
+     * 拼接限流key，格式为 key[ip-]类名-方法名，其中与请求无关的部分按方法缓存
      *
-     * <body>
-     *    <h2>StringBuffer</h2>
-     *    <p>
-     *        使用StringBuffer类时，每次都会对StringBuffer对象本身进行操作，<br/>
-     *        而不是生成新的对象，对字符串进行修改推荐使用StringBuffer<br/>
-     *        线程安全的
-     *    </p>
-     *    <p>
-     *        toString()：返回此序列中数据的字符串表示形式.
-     *    </p>
-     * </body>
      * @param rateLimiter
      * @param point
      * @return
      */
     public String getCombineKey(RateLimiter rateLimiter, JoinPoint point) {
-        StringBuffer stringBuffer = new StringBuffer(rateLimiter.key());
-        if (rateLimiter.limitType() == LimitType.IP) {
-            stringBuffer.append(IpUtils.getIpAddr(ServletUtils.getRequest())).append("-");
+        Method method = ((MethodSignature) point.getSignature()).getMethod();
+        KeyTemplate template = keyTemplates.computeIfAbsent(method, m -> new KeyTemplate(rateLimiter, m));
+        if (!template.perIp) {
+            return template.key;
+        }
+        String ip = IpUtils.getIpAddr(ServletUtils.getRequest());
+        return new StringBuilder(template.key.length() + template.suffix.length() + ip.length() + 1)
+                .append(template.key).append(ip).append('-').append(template.suffix).toString();
+    }
+
+    /**
+     * 限流key模板
+     */
+    private static final class KeyTemplate {
+        /**
+         * 按IP限流时为key前缀，否则为完整的key
+         */
+        private final String key;
+
+        /**
+         * 类名-方法名
+         */
+        private final String suffix;
+
+        private final boolean perIp;
+
+        KeyTemplate(RateLimiter rateLimiter, Method method) {
+            this.suffix = method.getDeclaringClass().getName() + "-" + method.getName();
+            this.perIp = rateLimiter.limitType() == LimitType.IP;
+            this.key = perIp ? rateLimiter.key() : rateLimiter.key() + suffix;
         }
-        MethodSignature signature = (MethodSignature) point.getSignature();
-        Method method = signature.getMethod();
-        Class<?> targetClass = method.getDeclaringClass();
-        stringBuffer.append(targetClass.getName()).append("-").append(method.getName());
-        return stringBuffer.toString();
     }
 }
@@ -1,8 +1,12 @@
 package com.ec.auth.config;
 
+import com.ec.auth.trace.RequestTraceFilter;
+import com.ec.auth.trace.SlowRequestRecorder;
+import com.ec.common.filter.MdcFilter;
 import com.ec.common.filter.RepeatableFilter;
 import com.ec.common.filter.XssFilter;
 import com.ec.common.utils.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
@@ -28,6 +32,13 @@ public class FilterConfig {
     @Value("${xss.urlPatterns}")
     private String urlPatterns;
 
+    //# 请求体最大长度（字节），JSON请求体会被缓存以便重复读取
+    @Value("${request.maxBodySize:10485760}")
+    private String maxBodySize;
+
+    @Autowired
+    private SlowRequestRecorder slowRequestRecorder;
+
     @SuppressWarnings({"rawtypes", "unchecked"})
     @Bean
     @ConditionalOnProperty(value = "xss.enabled", havingValue = "true")
@@ -42,11 +53,12 @@ public class FilterConfig {
         registration.setName("xssFilter");
         //FilterRegistrationBean.HIGHEST_PRECEDENCE   表这个过滤器在众多过滤器中级别最高，也就是过滤的时候最先执行
         //设置优先过滤的级别，越小越优先。
-        registration.setOrder(FilterRegistrationBean.HIGHEST_PRECEDENCE);
+        registration.setOrder(FilterRegistrationBean.HIGHEST_PRECEDENCE + 2);
         Map<String, String> initParameters = new HashMap<String, String>();
         //# 排除链接（多个用逗号分隔）
         //这个key 是随便写的，但是具体的过滤器里面 拿的时候也要对应的MC
         initParameters.put("excludes", excludes);//设置初始化的一些参数
+        initParameters.put("maxBodySize", maxBodySize);
         registration.setInitParameters(initParameters);
         return registration;
     }
@@ -59,9 +71,38 @@ public class FilterConfig {
         registration.setFilter(new RepeatableFilter());
         registration.addUrlPatterns("/*");
         registration.setName("repeatableFilter");
+        registration.addInitParameter("maxBodySize", maxBodySize);
         /**Ordered.HIGHEST_PRECEDENCE: 这是最高优先.
         Ordered.LOWEST_PRECEDENCE: 这是最低优先*/
         registration.setOrder(FilterRegistrationBean.LOWEST_PRECEDENCE);
         return registration;
     }
+
+    /**
+     * 日志上下文过滤器，先于其他过滤器执行，使整个请求的日志都带有请求编号和租户
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    @Bean
+    public FilterRegistrationBean mdcFilterRegistration() {
+        FilterRegistrationBean registration = new FilterRegistrationBean();
+        registration.setFilter(new MdcFilter());
+        registration.addUrlPatterns("/*");
+        registration.setName("mdcFilter");
+        registration.setOrder(FilterRegistrationBean.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    /**
+     * 请求耗时统计过滤器，紧随日志上下文过滤器执行
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    @Bean
+    public FilterRegistrationBean requestTraceFilterRegistration() {
+        FilterRegistrationBean registration = new FilterRegistrationBean();
+        registration.setFilter(new RequestTraceFilter(slowRequestRecorder));
+        registration.addUrlPatterns("/*");
+        registration.setName("requestTraceFilter");
+        registration.setOrder(FilterRegistrationBean.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
 }
@@ -1,5 +1,6 @@
 package com.ec.auth.config;
 
+import com.ec.auth.trace.SqlTraceInterceptor;
 import com.ec.common.utils.StringUtils;
 import org.apache.ibatis.io.VFS;
 import org.apache.ibatis.session.SqlSessionFactory;
@@ -119,6 +120,7 @@ public class MyBatisConfig {
         sessionFactory.setTypeAliasesPackage(typeAliasesPackage);
         sessionFactory.setMapperLocations(resolveMapperLocations(StringUtils.split(mapperLocations, ",")));
         sessionFactory.setConfigLocation(new DefaultResourceLoader().getResource(configLocation));
+        sessionFactory.setPlugins(new SqlTraceInterceptor());
         return sessionFactory.getObject();
     }
 }
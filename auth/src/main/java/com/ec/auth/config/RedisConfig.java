@@ -1,5 +1,7 @@
 package com.ec.auth.config;
 
+import com.ec.auth.trace.RequestTrace;
+import com.ec.auth.trace.TraceStage;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
@@ -10,6 +12,7 @@ import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
@@ -28,7 +31,18 @@ public class RedisConfig extends CachingConfigurerSupport {
     @Bean
     @SuppressWarnings(value = {"unchecked", "rawtypes"})
     public RedisTemplate<Object, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
-        RedisTemplate<Object, Object> template = new RedisTemplate<>();
+        RedisTemplate<Object, Object> template = new RedisTemplate<Object, Object>() {
+            // 所有Redis命令（包括脚本）最终都经过此方法，在这里统计当前请求的Redis耗时
+            @Override
+            public <T> T execute(RedisCallback<T> action, boolean exposeConnection, boolean pipeline) {
+                long start = RequestTrace.start();
+                try {
+                    return super.execute(action, exposeConnection, pipeline);
+                } finally {
+                    RequestTrace.stop(TraceStage.REDIS, start);
+                }
+            }
+        };
         template.setConnectionFactory(connectionFactory);
 
         FastJson2JsonRedisSerializer serializer = new FastJson2JsonRedisSerializer(Object.class);
@@ -58,21 +72,48 @@ public class RedisConfig extends CachingConfigurerSupport {
         return redisScript;
     }
 
+    @Bean
+    public DefaultRedisScript<Long> slidingWindowScript() {
+        DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>();
+        redisScript.setScriptText(slidingWindowScriptText());
+        redisScript.setResultType(Long.class);
+        return redisScript;
+    }
+
     /**
-     * 限流脚本
+     * 限流脚本，ARGV[3]为本次累加的次数（本地令牌桶批量对账），缺省为1
      */
     private String limitScriptText() {
         return "local key = KEYS[1]\n" +
                 "local count = tonumber(ARGV[1])\n" +
                 "local time = tonumber(ARGV[2])\n" +
+                "local permits = tonumber(ARGV[3] or 1)\n" +
                 "local current = redis.call('get', key);\n" +
                 "if current and tonumber(current) > count then\n" +
                 "    return tonumber(current);\n" +
                 "end\n" +
-                "current = redis.call('incr', key)\n" +
-                "if tonumber(current) == 1 then\n" +
+                "current = redis.call('incrby', key, permits)\n" +
+                "if tonumber(current) == permits then\n" +
                 "    redis.call('expire', key, time)\n" +
                 "end\n" +
                 "return tonumber(current);";
     }
+
+    /**
+     * 滑动窗口限流脚本，窗口内已有次数达到上限时不再记录，返回值大于count表示被限流
+     */
+    private String slidingWindowScriptText() {
+        return "local key = KEYS[1]\n" +
+                "local count = tonumber(ARGV[1])\n" +
+                "local window = tonumber(ARGV[2])\n" +
+                "local now = tonumber(ARGV[3])\n" +
+                "redis.call('zremrangebyscore', key, 0, now - window)\n" +
+                "local current = redis.call('zcard', key)\n" +
+                "if current >= count then\n" +
+                "    return current + 1;\n" +
+                "end\n" +
+                "redis.call('zadd', key, now, ARGV[4])\n" +
+                "redis.call('pexpire', key, window)\n" +
+                "return current + 1;";
+    }
 }
@@ -0,0 +1,79 @@
+package com.ec.auth.datasource;
+
+import com.ec.common.utils.DateUtils;
+import com.ec.saas.domain.MasterTenant;
+import com.ec.saas.domain.enums.TenantStatus;
+import com.ec.saas.service.IMasterTenantService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 租户数据源注册
+ * <p>
+ * 租户数据源不存在时校验租户状态、有效期后注册到动态数据源，请求拦截和后台任务共用。
+ * </p>
+ *
+ * @author ec
+ */
+@Component
+@Slf4j
+public class TenantDataSourceRegistrar {
+
+    @Autowired
+    private IMasterTenantService masterTenantService;
+
+    @Autowired
+    private DynamicRoutingDataSource dynamicRoutingDataSource;
+
+    @Value("${spring.datasource.driverClassName}")
+    private String driverClassName;
+
+    /**
+     * 租户数据源未注册时，从默认数据库查询租户信息并注册
+     *
+     * @param tenant 租户
+     */
+    public void register(String tenant) {
+        if (dynamicRoutingDataSource.existDataSource(tenant)) {
+            log.debug("&&&&&&&&&&& 当前租户:{}", tenant);
+            return;
+        }
+        MasterTenant masterTenant = masterTenantService.selectMasterTenant(tenant);
+        if (masterTenant == null) {
+            throw new RuntimeException("无此租户:" + tenant);
+        }
+        register(masterTenant);
+    }
+
+    /**
+     * 租户数据源未注册时注册，租户已停用或已过期时抛出异常
+     *
+     * @param masterTenant 租户信息
+     */
+    public void register(MasterTenant masterTenant) {
+        String tenant = masterTenant.getTenant();
+        if (dynamicRoutingDataSource.existDataSource(tenant)) {
+            return;
+        }
+        if (TenantStatus.DISABLE.getCode().equals(masterTenant.getStatus())) {
+            throw new RuntimeException("租户[" + tenant + "]已停用");
+        } else if (masterTenant.getExpirationDate() != null) {
+            if (masterTenant.getExpirationDate().before(DateUtils.getNowDate())) {
+                throw new RuntimeException("租户[" + tenant + "]已过期");
+            }
+        }
+        Map<String, Object> map = new HashMap<>();
+        map.put("driverClassName", driverClassName);
+        map.put("url", masterTenant.getUrl());
+        map.put("username", masterTenant.getUsername());
+        map.put("password", masterTenant.getPassword());
+        dynamicRoutingDataSource.addDataSource(tenant, map);
+
+        log.info("&&&&&&&&&&& 已设置租户:{} 连接信息: {}", tenant, masterTenant);
+    }
+}
@@ -1,23 +1,18 @@
 package com.ec.auth.interceptor;
 
 import com.ec.auth.datasource.DynamicDataSourceContextHolder;
-import com.ec.auth.datasource.DynamicRoutingDataSource;
-import com.ec.common.utils.DateUtils;
+import com.ec.auth.datasource.TenantDataSourceRegistrar;
+import com.ec.auth.trace.RequestTrace;
+import com.ec.auth.trace.TraceStage;
 import com.ec.common.utils.StringUtils;
-import com.ec.saas.domain.MasterTenant;
-import com.ec.saas.domain.enums.TenantStatus;
-import com.ec.saas.service.IMasterTenantService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
 import org.springframework.web.servlet.ModelAndView;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * 数据源拦截器
@@ -48,44 +43,26 @@ import java.util.Map;
 public class TenantInterceptor implements HandlerInterceptor {
 
     @Autowired
-    private IMasterTenantService masterTenantService;
-
-    @Autowired
-    private DynamicRoutingDataSource dynamicRoutingDataSource;
-
-    @Value("${spring.datasource.driverClassName}")
-    private String driverClassName;
+    private TenantDataSourceRegistrar tenantDataSourceRegistrar;
 
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        RequestTrace.mark(TraceStage.FILTER);
+        long start = RequestTrace.start();
+        try {
+            return switchTenant(request);
+        } finally {
+            RequestTrace.stop(TraceStage.TENANT, start);
+        }
+    }
+
+    private boolean switchTenant(HttpServletRequest request) {
 
         String url = request.getServletPath();
         String tenant = request.getHeader("tenant");
-        log.info("&&&&&&&&&&&&&&&& 租户拦截 &&&&&&&&&&&&&&&&");
         if (StringUtils.isNotBlank(tenant)) {
-            if (!dynamicRoutingDataSource.existDataSource(tenant)) {
-                //搜索默认数据库，去注册租户的数据源，下次进来直接session匹配数据源
-                MasterTenant masterTenant = masterTenantService.selectMasterTenant(tenant);
-                if (masterTenant == null) {
-                    throw new RuntimeException("无此租户:" + tenant);
-                } else if (TenantStatus.DISABLE.getCode().equals(masterTenant.getStatus())) {
-                    throw new RuntimeException("租户[" + tenant + "]已停用");
-                } else if (masterTenant.getExpirationDate() != null) {
-                    if (masterTenant.getExpirationDate().before(DateUtils.getNowDate())) {
-                        throw new RuntimeException("租户[" + tenant + "]已过期");
-                    }
-                }
-                Map<String, Object> map = new HashMap<>();
-                map.put("driverClassName", driverClassName);
-                map.put("url", masterTenant.getUrl());
-                map.put("username", masterTenant.getUsername());
-                map.put("password", masterTenant.getPassword());
-                dynamicRoutingDataSource.addDataSource(tenant, map);
-
-                log.info("&&&&&&&&&&& 已设置租户:{} 连接信息: {}", tenant, masterTenant);
-            } else {
-                log.info("&&&&&&&&&&& 当前租户:{}", tenant);
-            }
+            //搜索默认数据库，去注册租户的数据源，下次进来直接session匹配数据源
+            tenantDataSourceRegistrar.register(tenant);
         } else {
             throw new RuntimeException("缺少租户信息");
         }
@@ -7,27 +7,36 @@ import com.ec.common.constant.Constants;
 import com.ec.common.core.redis.RedisCache;
 import com.ec.common.filter.RepeatedlyRequestWrapper;
 import com.ec.common.utils.StringUtils;
-import com.ec.common.utils.http.HttpHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.web.util.WebUtils;
 
 import javax.servlet.http.HttpServletRequest;
-import java.util.HashMap;
-import java.util.Map;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.concurrent.TimeUnit;
 
 /**
  * 判断请求url和数据是否和上一次相同，
  * 如果和上次相同，则是重复提交表单。 有效时间为10秒内。
+ * <p>
+ * 请求地址、令牌和请求体计算摘要作为key，通过 SET NX PX 一次往返完成判断和记录，
+ * 并发的多个相同请求只有一个能写入成功；Redis中每次提交只保存固定长度的key。
+ * </p>
  *
  * @author ec
  */
 @Component
 public class SameUrlDataInterceptor extends RepeatSubmitInterceptor {
-    public final String REPEAT_PARAMS = "repeatParams";
+    private static final Logger log = LoggerFactory.getLogger(SameUrlDataInterceptor.class);
 
-    public final String REPEAT_TIME = "repeatTime";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
 
     // 令牌自定义标识
     @Value("${token.header}")
@@ -35,68 +44,68 @@ public class SameUrlDataInterceptor extends RepeatSubmitInterceptor {
 
     @Autowired
     private RedisCache redisCache;
-    @SuppressWarnings("unchecked")
+
     @Override
     public boolean isRepeatSubmit(HttpServletRequest request, RepeatSubmit annotation) {
-        String nowParams = "";
-        if (request instanceof RepeatedlyRequestWrapper) {
-            RepeatedlyRequestWrapper repeatedlyRequest = (RepeatedlyRequestWrapper) request;
-
-
-        nowParams = HttpHelper.getBodyString(repeatedlyRequest);
-        }
-
-        // body参数为空，获取Parameter的数据
-        if (StringUtils.isEmpty(nowParams)) {
-            nowParams = JSONObject.toJSONString(request.getParameterMap());
-        }
-        Map<String, Object> nowDataMap = new HashMap<String, Object>();
-        nowDataMap.put(REPEAT_PARAMS, nowParams);
-        nowDataMap.put(REPEAT_TIME, System.currentTimeMillis());
-
-        // 请求地址（作为存放cache的key值）
+        // 请求地址
         String url = request.getRequestURI();
 
         // 唯一值（没有消息头则使用请求地址）
         String submitKey = StringUtils.trimToEmpty(request.getHeader(header));
 
-        // 唯一标识（指定key + url + 消息头）
-        String cacheRepeatKey = Constants.REPEAT_SUBMIT_KEY + url + submitKey;
-
-        Object sessionObj = redisCache.getCacheObject(cacheRepeatKey);
-        if (sessionObj != null) {
-            Map<String, Object> sessionMap = (Map<String, Object>) sessionObj;
-            if (sessionMap.containsKey(url)) {
-                Map<String, Object> preDataMap = (Map<String, Object>) sessionMap.get(url);
-                if (compareParams(nowDataMap, preDataMap) && compareTime(nowDataMap, preDataMap, annotation.interval())) {
-                    return true;
-                }
-            }
+        String digest;
+        try {
+            digest = digest(request, submitKey);
+        } catch (IOException e) {
+            log.warn("计算重复提交摘要失败，跳过校验: {}", url, e);
+            return false;
         }
-        Map<String, Object> cacheMap = new HashMap<String, Object>();
-        cacheMap.put(url, nowDataMap);
-        redisCache.setCacheObject(cacheRepeatKey, cacheMap, annotation.interval(), TimeUnit.MILLISECONDS);
-        return false;
+
+        // 唯一标识（指定key + url + 摘要）
+        String cacheRepeatKey = Constants.REPEAT_SUBMIT_KEY + url + ":" + digest;
+        return !redisCache.setCacheObjectIfAbsent(cacheRepeatKey, System.currentTimeMillis(),
+                annotation.interval(), TimeUnit.MILLISECONDS);
     }
 
     /**
-     * 判断参数是否相同
+     * 计算 url + 令牌 + 参数 的摘要，请求体直接从缓冲区读取，不转换成字符串
      */
-    private boolean compareParams(Map<String, Object> nowMap, Map<String, Object> preMap) {
-        String nowParams = (String) nowMap.get(REPEAT_PARAMS);
-        String preParams = (String) preMap.get(REPEAT_PARAMS);
-        return nowParams.equals(preParams);
+    private String digest(HttpServletRequest request, String submitKey) throws IOException {
+        MessageDigest md = newDigest();
+        md.update(request.getRequestURI().getBytes(StandardCharsets.UTF_8));
+        md.update((byte) 0);
+        md.update(submitKey.getBytes(StandardCharsets.UTF_8));
+        md.update((byte) 0);
+        boolean hasBody = false;
+        RepeatedlyRequestWrapper repeatedlyRequest = WebUtils.getNativeRequest(request, RepeatedlyRequestWrapper.class);
+        if (repeatedlyRequest != null && repeatedlyRequest.getContentLength() > 0) {
+            byte[] buffer = new byte[4096];
+            try (InputStream in = repeatedlyRequest.getInputStream()) {
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    md.update(buffer, 0, n);
+                }
+            }
+            hasBody = true;
+        }
+        // body参数为空，获取Parameter的数据
+        if (!hasBody) {
+            md.update(JSONObject.toJSONString(request.getParameterMap()).getBytes(StandardCharsets.UTF_8));
+        }
+        byte[] hash = md.digest();
+        char[] chars = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            chars[i * 2] = HEX[(hash[i] >> 4) & 0xf];
+            chars[i * 2 + 1] = HEX[hash[i] & 0xf];
+        }
+        return new String(chars);
     }
 
-    /**
-     * 判断两次间隔时间
-     */
-    private boolean compareTime(Map<String, Object> nowMap, Map<String, Object> preMap, int interval) {
-        long time1 = (Long) nowMap.get(REPEAT_TIME);
-        long time2 = (Long) preMap.get(REPEAT_TIME);
-        if ((time1 - time2) < interval) {
-            return true;
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
-        return false;
     }
 }
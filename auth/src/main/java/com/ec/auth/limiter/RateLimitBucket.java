@@ -0,0 +1,206 @@
+package com.ec.auth.limiter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个限流key的本地令牌桶
+ * <p>
+ * 采用GCRA（通用信元速率算法）实现，只维护一个理论到达时间，通过CAS无锁放行；
+ * 本地放行的令牌数累计后按批次上报Redis，由Redis计数判断集群总量是否超限。
+ * </p>
+ *
+ * @author ec
+ */
+public class RateLimitBucket {
+    /**
+     * 最长对账间隔
+     */
+    private static final long MAX_SYNC_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * 限流key
+     */
+    private final String key;
+
+    /**
+     * 时间窗口内允许的次数
+     */
+    private final int count;
+
+    /**
+     * 时间窗口,单位秒
+     */
+    private final int time;
+
+    /**
+     * 时间窗口（纳秒）
+     */
+    private final long windowNanos;
+
+    /**
+     * 每个令牌的生成间隔（纳秒）
+     */
+    private final long intervalNanos;
+
+    /**
+     * 累计多少个本地令牌后与Redis对账
+     */
+    private final long syncBatch;
+
+    /**
+     * 对账间隔（纳秒）
+     */
+    private final long syncIntervalNanos;
+
+    /**
+     * 理论到达时间
+     */
+    private final AtomicLong theoreticalArrival;
+
+    /**
+     * 尚未上报Redis的令牌数
+     */
+    private final AtomicLong pending = new AtomicLong();
+
+    /**
+     * 是否正在对账
+     */
+    private final AtomicBoolean syncing = new AtomicBoolean();
+
+    private final LongAdder allowed = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * 集群总量已超限，本地拒绝直至下次对账
+     */
+    private volatile boolean blocked;
+
+    private volatile long lastSync;
+
+    public RateLimitBucket(String key, int count, int time) {
+        this.key = key;
+        this.count = Math.max(1, count);
+        this.time = Math.max(1, time);
+        this.windowNanos = TimeUnit.SECONDS.toNanos(this.time);
+        this.intervalNanos = Math.max(1, windowNanos / this.count);
+        this.syncBatch = Math.max(1, this.count / 10);
+        this.syncIntervalNanos = Math.min(MAX_SYNC_INTERVAL, windowNanos / 10);
+        long now = System.nanoTime();
+        this.theoreticalArrival = new AtomicLong(now);
+        this.lastSync = now;
+    }
+
+    /**
+     * 尝试获取一个令牌
+     *
+     * @param now 当前时间（System.nanoTime）
+     * @return 是否放行
+     */
+    public boolean tryAcquire(long now) {
+        if (!blocked) {
+            for (; ; ) {
+                long tat = theoreticalArrival.get();
+                long next = Math.max(tat, now) + intervalNanos;
+                if (next - now > windowNanos) {
+                    break;
+                }
+                if (theoreticalArrival.compareAndSet(tat, next)) {
+                    pending.incrementAndGet();
+                    allowed.increment();
+                    return true;
+                }
+            }
+        }
+        rejected.increment();
+        return false;
+    }
+
+    /**
+     * 记录一次由外部（如滑动窗口模式）判定的结果
+     */
+    public void record(boolean pass) {
+        if (pass) {
+            allowed.increment();
+        } else {
+            rejected.increment();
+        }
+    }
+
+    /**
+     * 是否需要与Redis对账
+     */
+    public boolean shouldSync(long now) {
+        long permits = pending.get();
+        return permits >= syncBatch || ((permits > 0 || blocked) && now - lastSync >= syncIntervalNanos);
+    }
+
+    /**
+     * 抢占对账权，同一时刻只有一个线程对账
+     */
+    public boolean beginSync() {
+        return syncing.compareAndSet(false, true);
+    }
+
+    /**
+     * 取出待上报的令牌数
+     */
+    public long drainPending() {
+        return pending.getAndSet(0);
+    }
+
+    /**
+     * 对账失败时归还待上报的令牌数，下次再上报
+     */
+    public void restorePending(long permits) {
+        pending.addAndGet(permits);
+    }
+
+    /**
+     * 结束对账
+     *
+     * @param now    当前时间
+     * @param global Redis中当前窗口的集群总量，为空表示对账失败
+     */
+    public void endSync(long now, Long global) {
+        if (global != null) {
+            blocked = global > count;
+        }
+        lastSync = now;
+        syncing.set(false);
+    }
+
+    /**
+     * 是否长时间未被访问，可以回收
+     */
+    public boolean isIdle(long now) {
+        return pending.get() == 0 && !syncing.get() && now - theoreticalArrival.get() > windowNanos;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getTime() {
+        return time;
+    }
+
+    public boolean isBlocked() {
+        return blocked;
+    }
+
+    public long getAllowedCount() {
+        return allowed.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+}
@@ -0,0 +1,41 @@
+package com.ec.auth.manager;
+
+/**
+ * 异步任务类别，每个类别一个有界队列
+ *
+ * @author ec
+ */
+public enum AsyncCategory {
+    LOGIN_LOG("loginLog", "登录日志", 10000),
+    DEFAULT("default", "其他", 1000);
+
+    /**
+     * 配置项key，队列容量配置为 async.capacity.{key}
+     */
+    private final String key;
+
+    private final String info;
+
+    /**
+     * 默认队列容量
+     */
+    private final int capacity;
+
+    AsyncCategory(String key, String info, int capacity) {
+        this.key = key;
+        this.info = info;
+        this.capacity = capacity;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getInfo() {
+        return info;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
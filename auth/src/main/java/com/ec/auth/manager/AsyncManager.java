@@ -1,32 +1,88 @@
 package com.ec.auth.manager;
 
-import com.ec.common.utils.Threads;
+import com.ec.auth.datasource.DynamicDataSourceContextHolder;
+import com.ec.common.utils.StringUtils;
 import com.ec.common.utils.spring.SpringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.TimerTask;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * 异步任务管理器
+ * <p>
+ * 每个任务类别一个有界队列，队列内按租户轮转出队，避免单个租户的大量任务阻塞其他租户；
+ * 工作线程在各类别之间轮转取任务。关闭时在超时时间内执行完队列中剩余的任务。
+ * </p>
  *
  * @author ec
  */
 public class AsyncManager {
+    private static final Logger log = LoggerFactory.getLogger(AsyncManager.class);
+
+    /**
+     * 未指定租户的任务使用的key（使用默认数据源）
+     */
+    private static final String DEFAULT_TENANT = "";
+
+    private static final AsyncCategory[] CATEGORIES = AsyncCategory.values();
+
     private static AsyncManager me = new AsyncManager();
+
     /**
-     * 操作延迟10毫秒
+     * 关闭时等待队列中任务执行完的最长时间（毫秒）
      */
-    private final int OPERATE_DELAY_TIME = 10;
+    private final long shutdownTimeout;
+
+    private final Map<AsyncCategory, CategoryQueue> queues = new EnumMap<>(AsyncCategory.class);
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    private final Thread[] workers;
+
     /**
-     * 异步操作任务调度线程池
+     * 下一次优先取任务的类别
      */
-    private ScheduledExecutorService executor = SpringUtils.getBean("scheduledExecutorService");
+    private int cursor;
+
+    /**
+     * 所有队列中的任务数
+     */
+    private int size;
+
+    private volatile boolean running = true;
 
     /**
      * 单例模式
      */
     private AsyncManager() {
+        int threads = Math.max(1, SpringUtils.getProperty("async.threads", Integer.class, 4));
+        this.shutdownTimeout = SpringUtils.getProperty("async.shutdownTimeout", Long.class, 10000L);
+        for (AsyncCategory category : CATEGORIES) {
+            int capacity = SpringUtils.getProperty("async.capacity." + category.getKey(), Integer.class, category.getCapacity());
+            queues.put(category, new CategoryQueue(category, capacity));
+        }
+        workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(this::runWorker, "async-task-" + (i + 1));
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
     }
 
     public static AsyncManager me() {
@@ -35,17 +91,262 @@ public class AsyncManager {
 
     /**
      * 执行任务
+     * <p>{@link AsyncTask} 按其类别和租户入队，其他任务归入默认类别，租户取当前数据源</p>
      *
      * @param task 任务
+     * @return 是否已入队
      */
-    public void execute(TimerTask task) {
-        executor.schedule(task, OPERATE_DELAY_TIME, TimeUnit.MILLISECONDS);
+    public boolean execute(TimerTask task) {
+        if (task instanceof AsyncTask) {
+            AsyncTask asyncTask = (AsyncTask) task;
+            return execute(asyncTask.getCategory(), asyncTask.getTenant(), task);
+        }
+        return execute(AsyncCategory.DEFAULT, DynamicDataSourceContextHolder.getDataSourceKey(), task);
     }
 
     /**
-     * 停止任务线程池
+     * 执行任务
+     *
+     * @param category 任务类别
+     * @param tenant   租户，为空时使用默认数据源
+     * @param task     任务
+     * @return 是否已入队，队列已满或已关闭时返回false
+     */
+    public boolean execute(AsyncCategory category, String tenant, Runnable task) {
+        CategoryQueue queue = queues.get(category);
+        Job job = new Job(queue, StringUtils.nvl(tenant, DEFAULT_TENANT), task);
+        lock.lock();
+        try {
+            if (running && queue.size < queue.capacity) {
+                queue.add(job);
+                size++;
+                notEmpty.signal();
+                return true;
+            }
+        } finally {
+            lock.unlock();
+        }
+        queue.rejected.increment();
+        log.warn("{}任务未执行，{}，租户'{}'", category.getInfo(), running ? "队列已满" : "任务管理器已关闭", tenant);
+        return false;
+    }
+
+    /**
+     * 取下一个任务，已关闭且队列为空时返回null
+     */
+    private Job take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (size == 0) {
+                if (!running) {
+                    return null;
+                }
+                notEmpty.await();
+            }
+            for (int i = 0; i < CATEGORIES.length; i++) {
+                int index = (cursor + i) % CATEGORIES.length;
+                CategoryQueue queue = queues.get(CATEGORIES[index]);
+                if (queue.size > 0) {
+                    cursor = (index + 1) % CATEGORIES.length;
+                    size--;
+                    return queue.poll();
+                }
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void runWorker() {
+        for (; ; ) {
+            Job job;
+            try {
+                job = take();
+            } catch (InterruptedException e) {
+                break;
+            }
+            if (job == null) {
+                break;
+            }
+            job.run();
+        }
+    }
+
+    /**
+     * 停止接收任务，在超时时间内执行完队列中剩余的任务
      */
     public void shutdown() {
-        Threads.shutdownAndAwaitTermination(executor);
+        lock.lock();
+        try {
+            running = false;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(shutdownTimeout);
+        try {
+            for (Thread worker : workers) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining > 0) {
+                    worker.join(remaining);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int abandoned;
+        lock.lock();
+        try {
+            abandoned = size;
+        } finally {
+            lock.unlock();
+        }
+        if (abandoned > 0) {
+            for (Thread worker : workers) {
+                worker.interrupt();
+            }
+            log.warn("异步任务管理器关闭超时，{}个任务未执行", abandoned);
+        }
+        log.info("异步任务管理器已关闭 {}", getStatistics());
+    }
+
+    /**
+     * 获取各类别队列的统计信息
+     */
+    public List<Map<String, Object>> getStatistics() {
+        List<Map<String, Object>> list = new ArrayList<>(CATEGORIES.length);
+        for (AsyncCategory category : CATEGORIES) {
+            CategoryQueue queue = queues.get(category);
+            int depth;
+            int tenants;
+            lock.lock();
+            try {
+                depth = queue.size;
+                tenants = queue.tenants.size();
+            } finally {
+                lock.unlock();
+            }
+            long executed = queue.completed.sum() + queue.failed.sum();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("category", category);
+            stats.put("name", category.getInfo());
+            stats.put("capacity", queue.capacity);
+            stats.put("depth", depth);
+            stats.put("tenants", tenants);
+            stats.put("rejected", queue.rejected.sum());
+            stats.put("completed", queue.completed.sum());
+            stats.put("failed", queue.failed.sum());
+            stats.put("avgWaitMillis", executed == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(queue.waitNanos.sum() / executed));
+            stats.put("maxWaitMillis", TimeUnit.NANOSECONDS.toMillis(queue.maxWaitNanos.get()));
+            list.add(stats);
+        }
+        return list;
+    }
+
+    /**
+     * 单个类别的任务队列，按租户分组轮转出队（由lock保护）
+     */
+    private static final class CategoryQueue {
+        private final AsyncCategory category;
+
+        private final int capacity;
+
+        /**
+         * 各租户待执行的任务
+         */
+        private final Map<String, ArrayDeque<Job>> tenants = new HashMap<>();
+
+        /**
+         * 有待执行任务的租户，按轮转顺序排列
+         */
+        private final ArrayDeque<String> ready = new ArrayDeque<>();
+
+        private int size;
+
+        private final LongAdder rejected = new LongAdder();
+
+        private final LongAdder completed = new LongAdder();
+
+        private final LongAdder failed = new LongAdder();
+
+        private final LongAdder waitNanos = new LongAdder();
+
+        private final LongAccumulator maxWaitNanos = new LongAccumulator(Long::max, 0);
+
+        CategoryQueue(AsyncCategory category, int capacity) {
+            this.category = category;
+            this.capacity = capacity;
+        }
+
+        void add(Job job) {
+            ArrayDeque<Job> jobs = tenants.get(job.tenant);
+            if (jobs == null) {
+                jobs = new ArrayDeque<>();
+                tenants.put(job.tenant, jobs);
+                ready.addLast(job.tenant);
+            }
+            jobs.addLast(job);
+            size++;
+        }
+
+        Job poll() {
+            String tenant = ready.pollFirst();
+            ArrayDeque<Job> jobs = tenants.get(tenant);
+            Job job = jobs.pollFirst();
+            if (jobs.isEmpty()) {
+                tenants.remove(tenant);
+            } else {
+                ready.addLast(tenant);
+            }
+            size--;
+            return job;
+        }
+    }
+
+    /**
+     * 队列中的任务
+     */
+    private static final class Job {
+        private final CategoryQueue queue;
+
+        private final String tenant;
+
+        private final Runnable task;
+
+        private final long enqueueTime = System.nanoTime();
+
+        /**
+         * 提交任务时的日志上下文
+         */
+        private final Map<String, String> mdc = MDC.getCopyOfContextMap();
+
+        Job(CategoryQueue queue, String tenant, Runnable task) {
+            this.queue = queue;
+            this.tenant = tenant;
+            this.task = task;
+        }
+
+        void run() {
+            long wait = System.nanoTime() - enqueueTime;
+            queue.waitNanos.add(wait);
+            queue.maxWaitNanos.accumulate(wait);
+            try {
+                if (mdc != null) {
+                    MDC.setContextMap(mdc);
+                }
+                if (StringUtils.isNotEmpty(tenant)) {
+                    DynamicDataSourceContextHolder.setDataSourceKey(tenant);
+                }
+                task.run();
+                queue.completed.increment();
+            } catch (Throwable e) {
+                queue.failed.increment();
+                log.error("{}任务执行异常，租户'{}'", queue.category.getInfo(), tenant, e);
+            } finally {
+                DynamicDataSourceContextHolder.clearDataSourceKey();
+                MDC.clear();
+            }
+        }
     }
 }
@@ -0,0 +1,30 @@
+package com.ec.auth.manager;
+
+import java.util.TimerTask;
+
+/**
+ * 带类别和租户的异步任务
+ * <p>
+ * 由 {@link AsyncManager} 按类别入队、按租户轮转执行，执行前切换到租户数据源。
+ * </p>
+ *
+ * @author ec
+ */
+public abstract class AsyncTask extends TimerTask {
+    private final AsyncCategory category;
+
+    private final String tenant;
+
+    protected AsyncTask(AsyncCategory category, String tenant) {
+        this.category = category;
+        this.tenant = tenant;
+    }
+
+    public AsyncCategory getCategory() {
+        return category;
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+}
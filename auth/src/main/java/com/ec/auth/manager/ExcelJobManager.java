@@ -0,0 +1,402 @@
+package com.ec.auth.manager;
+
+import com.ec.auth.datasource.DynamicDataSourceContextHolder;
+import com.ec.common.config.ErpCrmConfig;
+import com.ec.common.constant.Constants;
+import com.ec.common.core.domain.model.ExcelJob;
+import com.ec.common.core.redis.RedisCache;
+import com.ec.common.exception.ServiceException;
+import com.ec.common.utils.DateUtils;
+import com.ec.common.utils.SecurityUtils;
+import com.ec.common.utils.StringUtils;
+import com.ec.common.utils.file.FileUtils;
+import com.ec.common.utils.uuid.IdUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 导入导出任务管理
+ * <p>
+ * 导入导出提交后立即返回任务ID，由有界线程池在提交者的租户数据源和登录信息下执行；
+ * 进度定期写入Redis供前端轮询，导出结果写入 {profile}/download/job 目录，过期后定时清理。
+ * 每个租户同时未完成的任务数有上限（单实例内计数）。
+ * </p>
+ *
+ * @author ec
+ */
+@Component
+public class ExcelJobManager {
+    private static final Logger log = LoggerFactory.getLogger(ExcelJobManager.class);
+
+    /**
+     * 未指定租户的任务使用的key（使用默认数据源）
+     */
+    private static final String DEFAULT_TENANT = "";
+
+    /**
+     * 进度写入Redis的最小间隔（毫秒）
+     */
+    private static final long PROGRESS_INTERVAL = 1000;
+
+    /**
+     * 导出任务
+     */
+    @FunctionalInterface
+    public interface ExportTask {
+        /**
+         * 写出导出结果
+         *
+         * @param out      结果文件输出流
+         * @param progress 进度
+         */
+        void write(OutputStream out, Progress progress) throws Exception;
+    }
+
+    /**
+     * 导入任务
+     */
+    @FunctionalInterface
+    public interface ImportTask {
+        /**
+         * 读取导入文件
+         *
+         * @param file     上传的文件
+         * @param progress 进度
+         * @return 结果信息
+         */
+        String read(File file, Progress progress) throws Exception;
+    }
+
+    /**
+     * 工作线程数
+     */
+    @Value("${excelJob.threads:4}")
+    private int threads;
+
+    /**
+     * 等待执行的任务数上限
+     */
+    @Value("${excelJob.queueCapacity:100}")
+    private int queueCapacity;
+
+    /**
+     * 每个租户同时未完成的任务数上限
+     */
+    @Value("${excelJob.tenantLimit:2}")
+    private int tenantLimit;
+
+    /**
+     * 任务信息和结果文件的保留时间（小时）
+     */
+    @Value("${excelJob.expireHours:24}")
+    private int expireHours;
+
+    /**
+     * 关闭时等待执行中任务的最长时间（毫秒）
+     */
+    @Value("${excelJob.shutdownTimeout:10000}")
+    private long shutdownTimeout;
+
+    @Autowired
+    private RedisCache redisCache;
+
+    /**
+     * 各租户未完成的任务数
+     */
+    private final Map<String, Integer> tenantJobs = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+            Thread thread = new Thread(r, "excel-job-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 提交导出任务
+     *
+     * @param name 任务名称，同时作为下载文件名
+     * @param task 导出任务
+     * @return 任务ID
+     */
+    public String submitExport(String name, ExportTask task) {
+        ExcelJob job = newJob(ExcelJob.TYPE_EXPORT, name);
+        job.setFileName(job.getJobId() + "_" + name + ".xlsx");
+        return submit(job, progress -> {
+            File file = new File(getJobPath(), job.getFileName());
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file.toPath()))) {
+                task.write(out, progress);
+            } catch (Exception e) {
+                FileUtils.deleteFile(file.getPath());
+                throw e;
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 提交导入任务，上传文件先保存到 {profile}/import/job 目录，任务结束后删除
+     *
+     * @param name 任务名称
+     * @param file 上传的文件
+     * @param task 导入任务
+     * @return 任务ID
+     */
+    public String submitImport(String name, MultipartFile file, ImportTask task) throws IOException {
+        ExcelJob job = newJob(ExcelJob.TYPE_IMPORT, name);
+        File dir = new File(ErpCrmConfig.getImportPath(), "job");
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        File upload = new File(dir, job.getJobId() + "." + StringUtils.defaultIfEmpty(
+                FilenameUtils.getExtension(file.getOriginalFilename()), "xlsx"));
+        file.transferTo(upload);
+        try {
+            return submit(job, progress -> {
+                try {
+                    return task.read(upload, progress);
+                } finally {
+                    FileUtils.deleteFile(upload.getPath());
+                }
+            });
+        } catch (RuntimeException e) {
+            FileUtils.deleteFile(upload.getPath());
+            throw e;
+        }
+    }
+
+    /**
+     * 查询任务
+     *
+     * @param jobId 任务ID
+     * @return 任务信息，不存在或已过期时返回null
+     */
+    public ExcelJob getJob(String jobId) {
+        return redisCache.getCacheObject(getCacheKey(jobId));
+    }
+
+    /**
+     * 获取任务的结果文件
+     *
+     * @param job 任务信息
+     * @return 结果文件，没有结果文件时返回null
+     */
+    public File getResultFile(ExcelJob job) {
+        if (StringUtils.isEmpty(job.getFileName())) {
+            return null;
+        }
+        File file = new File(getJobPath(), job.getFileName());
+        return file.isFile() ? file : null;
+    }
+
+    private ExcelJob newJob(String type, String name) {
+        ExcelJob job = new ExcelJob();
+        job.setJobId(IdUtils.fastSimpleUUID());
+        job.setType(type);
+        job.setName(name);
+        job.setStatus(ExcelJob.STATUS_WAITING);
+        job.setTenant(StringUtils.nvl(DynamicDataSourceContextHolder.getDataSourceKey(), DEFAULT_TENANT));
+        job.setCreateBy(SecurityUtils.getUsername());
+        job.setCreateTime(DateUtils.getNowDate());
+        return job;
+    }
+
+    /**
+     * 任务执行体
+     */
+    @FunctionalInterface
+    private interface JobBody {
+        String run(Progress progress) throws Exception;
+    }
+
+    private String submit(ExcelJob job, JobBody body) {
+        String tenant = job.getTenant();
+        if (!acquire(tenant)) {
+            throw new ServiceException("当前已有" + tenantLimit + "个导入导出任务未完成，请稍后再试");
+        }
+        saveJob(job);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+        try {
+            executor.execute(() -> run(job, body, authentication, mdc));
+        } catch (RejectedExecutionException e) {
+            release(tenant);
+            redisCache.deleteObject(getCacheKey(job.getJobId()));
+            throw new ServiceException("导入导出任务过多，请稍后再试");
+        }
+        return job.getJobId();
+    }
+
+    private void run(ExcelJob job, JobBody body, Authentication authentication, Map<String, String> mdc) {
+        try {
+            if (mdc != null) {
+                MDC.setContextMap(mdc);
+            }
+            if (StringUtils.isNotEmpty(job.getTenant())) {
+                DynamicDataSourceContextHolder.setDataSourceKey(job.getTenant());
+            }
+            SecurityContext context = SecurityContextHolder.createEmptyContext();
+            context.setAuthentication(authentication);
+            SecurityContextHolder.setContext(context);
+
+            job.setStatus(ExcelJob.STATUS_RUNNING);
+            job.setStartTime(DateUtils.getNowDate());
+            saveJob(job);
+            job.setMessage(body.run(new Progress(job)));
+            job.setStatus(ExcelJob.STATUS_SUCCESS);
+        } catch (Throwable e) {
+            log.error("{}任务'{}'执行失败，租户'{}'", job.getName(), job.getJobId(), job.getTenant(), e);
+            job.setStatus(ExcelJob.STATUS_FAILED);
+            job.setMessage(e instanceof ServiceException ? e.getMessage() : "任务执行失败，请联系网站管理员！");
+        } finally {
+            job.setEndTime(DateUtils.getNowDate());
+            try {
+                saveJob(job);
+            } finally {
+                release(job.getTenant());
+                SecurityContextHolder.clearContext();
+                DynamicDataSourceContextHolder.clearDataSourceKey();
+                MDC.clear();
+            }
+        }
+    }
+
+    /**
+     * 占用租户的任务数，达到上限时返回false
+     */
+    private boolean acquire(String tenant) {
+        boolean[] acquired = new boolean[1];
+        tenantJobs.compute(tenant, (key, count) -> {
+            int current = count == null ? 0 : count;
+            if (current >= tenantLimit) {
+                return count;
+            }
+            acquired[0] = true;
+            return current + 1;
+        });
+        return acquired[0];
+    }
+
+    private void release(String tenant) {
+        tenantJobs.computeIfPresent(tenant, (key, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private void saveJob(ExcelJob job) {
+        redisCache.setCacheObject(getCacheKey(job.getJobId()), job, expireHours, TimeUnit.HOURS);
+    }
+
+    private String getCacheKey(String jobId) {
+        return Constants.EXCEL_JOB_KEY + jobId;
+    }
+
+    /**
+     * 导出结果目录
+     */
+    private File getJobPath() {
+        File dir = new File(ErpCrmConfig.getDownloadPath(), "job");
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        return dir;
+    }
+
+    /**
+     * 定时删除过期的导出结果文件
+     */
+    @Scheduled(cron = "${excelJob.cleanCron:0 30 * * * ?}")
+    public void clean() {
+        File[] files = getJobPath().listFiles();
+        if (files == null) {
+            return;
+        }
+        long expireTime = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(expireHours);
+        for (File file : files) {
+            if (file.isFile() && file.lastModified() < expireTime && !file.delete()) {
+                log.warn("删除过期的导出文件失败 {}", file.getPath());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(shutdownTimeout, TimeUnit.MILLISECONDS)) {
+                log.warn("导入导出任务关闭超时，{}个任务未完成", executor.shutdownNow().size() + executor.getActiveCount());
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 任务进度，由执行任务的线程更新，按间隔写入Redis
+     */
+    public final class Progress {
+        private final ExcelJob job;
+
+        private long lastSaveTime = System.currentTimeMillis();
+
+        private Progress(ExcelJob job) {
+            this.job = job;
+        }
+
+        /**
+         * 设置总条数
+         */
+        public void setTotal(long total) {
+            job.setTotal(total);
+        }
+
+        /**
+         * 处理完一条
+         */
+        public void step() {
+            step(1);
+        }
+
+        /**
+         * 处理完多条
+         */
+        public void step(int count) {
+            job.setProcessed(job.getProcessed() + count);
+            long now = System.currentTimeMillis();
+            if (now - lastSaveTime >= PROGRESS_INTERVAL) {
+                lastSaveTime = now;
+                saveJob(job);
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.ec.auth.manager;
+
+import com.ec.auth.datasource.DynamicDataSourceContextHolder;
+import com.ec.auth.datasource.TenantDataSourceRegistrar;
+import com.ec.common.constant.Constants;
+import com.ec.common.core.redis.RedisCache;
+import com.ec.common.utils.DateUtils;
+import com.ec.common.utils.uuid.IdUtils;
+import com.ec.saas.domain.MasterTenant;
+import com.ec.saas.domain.enums.TenantStatus;
+import com.ec.saas.service.IMasterTenantService;
+import com.ec.sys.service.ISysLogininforService;
+import com.ec.sys.service.ISysOperLogService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 日志归档任务
+ * <p>
+ * 定时遍历所有租户，将保留期之前的操作日志、登录日志按月导出为归档文件并从库中删除。
+ * 每个租户的归档持有Redis锁，多个节点同时触发时只有一个节点归档该租户。
+ * </p>
+ *
+ * @author ec
+ */
+@Component
+public class LogArchiveTask {
+    private static final Logger log = LoggerFactory.getLogger(LogArchiveTask.class);
+
+    /**
+     * 是否开启归档
+     */
+    @Value("${logArchive.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * 库中保留的月数（不含当月）
+     */
+    @Value("${logArchive.retainMonths:6}")
+    private int retainMonths;
+
+    /**
+     * 单个租户归档锁的最长持有时间（分钟）
+     */
+    @Value("${logArchive.lockTimeout:60}")
+    private int lockTimeout;
+
+    @Autowired
+    private RedisCache redisCache;
+
+    @Autowired
+    private IMasterTenantService masterTenantService;
+
+    @Autowired
+    private TenantDataSourceRegistrar tenantDataSourceRegistrar;
+
+    @Autowired
+    private ISysOperLogService operLogService;
+
+    @Autowired
+    private ISysLogininforService logininforService;
+
+    @Scheduled(cron = "${logArchive.cron:0 0 3 * * ?}")
+    public void archive() {
+        if (!enabled) {
+            return;
+        }
+        Date endTime = DateUtils.addMonths(DateUtils.truncate(DateUtils.getNowDate(), Calendar.MONTH), -retainMonths);
+        List<MasterTenant> tenants = masterTenantService.selectMasterTenants(new MasterTenant());
+        for (MasterTenant masterTenant : tenants) {
+            if (TenantStatus.DISABLE.getCode().equals(masterTenant.getStatus())) {
+                continue;
+            }
+            String tenant = masterTenant.getTenant();
+            String lockKey = Constants.LOG_ARCHIVE_LOCK_KEY + tenant;
+            String token = IdUtils.fastSimpleUUID();
+            if (!redisCache.setCacheObjectIfAbsent(lockKey, token, lockTimeout, TimeUnit.MINUTES)) {
+                log.info("租户'{}'日志正在由其他节点归档，跳过", tenant);
+                continue;
+            }
+            try {
+                tenantDataSourceRegistrar.register(masterTenant);
+                DynamicDataSourceContextHolder.setDataSourceKey(tenant);
+                int operLogs = operLogService.archiveOperLog(tenant, endTime);
+                int logininfors = logininforService.archiveLogininfor(tenant, endTime);
+                log.info("租户'{}'日志归档完成，操作日志{}条，登录日志{}条", tenant, operLogs, logininfors);
+            } catch (Exception e) {
+                log.error("租户'{}'日志归档失败", tenant, e);
+            } finally {
+                DynamicDataSourceContextHolder.clearDataSourceKey();
+                // 只释放自己持有的锁，超时后被其他节点获取的锁不删除
+                if (token.equals(redisCache.getCacheObject(lockKey))) {
+                    redisCache.deleteObject(lockKey);
+                }
+            }
+        }
+    }
+}
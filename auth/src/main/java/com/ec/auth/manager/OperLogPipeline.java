@@ -0,0 +1,296 @@
+package com.ec.auth.manager;
+
+import com.ec.auth.datasource.DynamicDataSourceContextHolder;
+import com.ec.common.utils.StringUtils;
+import com.ec.common.utils.ip.AddressUtils;
+import com.ec.sys.domain.SysOperLog;
+import com.ec.sys.service.ISysOperLogService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 操作日志批量写入管道
+ * <p>
+ * 每个租户一个有界缓冲区，由单个写入线程按租户分组批量insert；
+ * 缓冲区达到批量大小或到达刷新间隔时写入，容器关闭时写完缓冲区中剩余的日志。
+ * 请求参数、返回结果由调用方在请求线程中按长度上限序列化后再提交，
+ * 避免缓冲区中的日志引用请求对象；写入线程只补全IP归属地。
+ * </p>
+ *
+ * @author ec
+ */
+@Component
+public class OperLogPipeline {
+    private static final Logger log = LoggerFactory.getLogger(OperLogPipeline.class);
+
+    /**
+     * 未登录或未指定租户时使用的缓冲区key（使用默认数据源）
+     */
+    private static final String DEFAULT_TENANT = "";
+
+    /**
+     * 缓冲区满时的处理策略
+     */
+    public enum DropPolicy {
+        /**
+         * 丢弃缓冲区中最旧的日志
+         */
+        DROP_OLDEST,
+
+        /**
+         * 丢弃当前日志
+         */
+        DROP_NEWEST,
+
+        /**
+         * 由调用线程直接写入（反压）
+         */
+        CALLER_RUNS
+    }
+
+    /**
+     * 每个租户缓冲区容量
+     */
+    @Value("${operlog.capacity:10000}")
+    private int capacity;
+
+    /**
+     * 单次批量写入条数
+     */
+    @Value("${operlog.batchSize:200}")
+    private int batchSize;
+
+    /**
+     * 刷新间隔（毫秒）
+     */
+    @Value("${operlog.flushInterval:1000}")
+    private long flushInterval;
+
+    /**
+     * 关闭时等待写入线程的最长时间（毫秒）
+     */
+    @Value("${operlog.shutdownTimeout:10000}")
+    private long shutdownTimeout;
+
+    @Value("${operlog.dropPolicy:CALLER_RUNS}")
+    private DropPolicy dropPolicy;
+
+    @Autowired
+    private ISysOperLogService operLogService;
+
+    private final Map<String, BlockingQueue<Entry>> buffers = new ConcurrentHashMap<>();
+
+    private final LongAdder accepted = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final LongAdder callerRuns = new LongAdder();
+
+    private final LongAdder written = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    private volatile boolean running;
+
+    private Thread writer;
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writer = new Thread(this::runWriter, "oper-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * 提交一条操作日志，请求参数、返回结果需已在请求线程中按长度上限序列化
+     *
+     * @param tenant  租户
+     * @param operLog 操作日志
+     */
+    public void offer(String tenant, SysOperLog operLog) {
+        if (operLog.getOperTime() == null) {
+            operLog.setOperTime(new Date());
+        }
+        Entry entry = new Entry(operLog);
+        String key = StringUtils.nvl(tenant, DEFAULT_TENANT);
+        BlockingQueue<Entry> buffer = buffers.computeIfAbsent(key, k -> new ArrayBlockingQueue<>(capacity));
+        if (!running) {
+            // 已关闭，直接写入
+            callerRuns.increment();
+            List<Entry> batch = new ArrayList<>(1);
+            batch.add(entry);
+            write(key, batch);
+            return;
+        }
+        if (buffer.offer(entry)) {
+            accepted.increment();
+        } else {
+            onFull(key, buffer, entry);
+        }
+        if (!running) {
+            // 入队期间管道已关闭，关闭时的最后一次写出可能已经结束，由调用线程写出缓冲区
+            callerRuns.increment();
+            drain(key, buffer);
+            return;
+        }
+        if (buffer.size() >= batchSize) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    private void onFull(String key, BlockingQueue<Entry> buffer, Entry entry) {
+        switch (dropPolicy) {
+            case DROP_NEWEST:
+                dropped.increment();
+                break;
+            case DROP_OLDEST:
+                while (!buffer.offer(entry)) {
+                    if (buffer.poll() != null) {
+                        dropped.increment();
+                    }
+                }
+                accepted.increment();
+                break;
+            default:
+                // 由调用线程写出一批，腾出空间
+                callerRuns.increment();
+                List<Entry> batch = new ArrayList<>(batchSize + 1);
+                buffer.drainTo(batch, batchSize);
+                batch.add(entry);
+                write(key, batch);
+                break;
+        }
+    }
+
+    private void runWriter() {
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(flushInterval);
+        while (running) {
+            LockSupport.parkNanos(this, intervalNanos);
+            try {
+                flushAll();
+            } catch (Throwable e) {
+                log.error("操作日志写入异常", e);
+            }
+        }
+    }
+
+    /**
+     * 写出所有租户缓冲区中当前的日志
+     */
+    private void flushAll() {
+        for (Map.Entry<String, BlockingQueue<Entry>> entry : buffers.entrySet()) {
+            drain(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * 按批量大小写出租户缓冲区中当前的日志
+     */
+    private void drain(String tenant, BlockingQueue<Entry> buffer) {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        int remaining = buffer.size();
+        while (remaining > 0 && buffer.drainTo(batch, Math.min(remaining, batchSize)) > 0) {
+            remaining -= batch.size();
+            write(tenant, batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * 按租户批量写入，调用线程原有的数据源会被恢复
+     */
+    private void write(String tenant, List<Entry> batch) {
+        String previous = DynamicDataSourceContextHolder.getDataSourceKey();
+        try {
+            if (StringUtils.isNotEmpty(tenant)) {
+                DynamicDataSourceContextHolder.setDataSourceKey(tenant);
+            }
+            List<SysOperLog> operLogs = new ArrayList<>(batch.size());
+            for (Entry entry : batch) {
+                operLogs.add(entry.complete());
+            }
+            operLogService.batchOperlog(operLogs);
+            written.add(batch.size());
+        } catch (Exception e) {
+            failed.add(batch.size());
+            log.error("租户'{}'批量写入操作日志失败,丢失{}条", tenant, batch.size(), e);
+        } finally {
+            if (previous == null) {
+                DynamicDataSourceContextHolder.clearDataSourceKey();
+            } else {
+                DynamicDataSourceContextHolder.setDataSourceKey(previous);
+            }
+        }
+    }
+
+    /**
+     * 停止写入线程，并写完缓冲区中剩余的日志；此后提交的日志由调用线程写入
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(shutdownTimeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushAll();
+        log.info("操作日志管道已关闭 {}", getStatistics());
+    }
+
+    /**
+     * 获取管道统计信息
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        int depth = 0;
+        for (BlockingQueue<Entry> buffer : buffers.values()) {
+            depth += buffer.size();
+        }
+        stats.put("dropPolicy", dropPolicy);
+        stats.put("depth", depth);
+        stats.put("accepted", accepted.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("callerRuns", callerRuns.sum());
+        stats.put("written", written.sum());
+        stats.put("failed", failed.sum());
+        return stats;
+    }
+
+    /**
+     * 缓冲区中的日志，写入前补全IP归属地
+     */
+    private static final class Entry {
+        private final SysOperLog operLog;
+
+        Entry(SysOperLog operLog) {
+            this.operLog = operLog;
+        }
+
+        SysOperLog complete() {
+            if (operLog.getOperLocation() == null) {
+                operLog.setOperLocation(AddressUtils.getRealAddressByIP(operLog.getOperIp()));
+            }
+            return operLog;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.ec.auth.manager.factory;
 
-import com.ec.auth.datasource.DynamicDataSourceContextHolder;
+import com.ec.auth.manager.AsyncCategory;
+import com.ec.auth.manager.AsyncTask;
 import com.ec.common.constant.Constants;
 import com.ec.common.utils.LogUtils;
 import com.ec.common.utils.ServletUtils;
@@ -9,9 +10,7 @@ import com.ec.common.utils.ip.AddressUtils;
 import com.ec.common.utils.ip.IpUtils;
 import com.ec.common.utils.spring.SpringUtils;
 import com.ec.sys.domain.SysLogininfor;
-import com.ec.sys.domain.SysOperLog;
 import com.ec.sys.service.ISysLogininforService;
-import com.ec.sys.service.ISysOperLogService;
 import eu.bitwalker.useragentutils.UserAgent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,7 +44,7 @@ public class AsyncFactory {
                                              final Object... args) {
         final UserAgent userAgent = UserAgent.parseUserAgentString(ServletUtils.getRequest().getHeader("User-Agent"));
         final String ip = IpUtils.getIpAddr(ServletUtils.getRequest());
-        return new TimerTask() {
+        return new AsyncTask(AsyncCategory.LOGIN_LOG, tenant) {
             @Override
             public void run() {
                 String address = AddressUtils.getRealAddressByIP(ip);
@@ -75,33 +74,9 @@ public class AsyncFactory {
                 } else if (Constants.LOGIN_FAIL.equals(status)) {
                     logininfor.setStatus(Constants.FAIL);
                 }
-                //切换数据源
-                if (StringUtils.isNotBlank(tenant))
-                    DynamicDataSourceContextHolder.setDataSourceKey(tenant);
-                // 插入数据
+                // 插入数据（由AsyncManager切换到租户数据源）
                 SpringUtils.getBean(ISysLogininforService.class).insertLogininfor(logininfor);
             }
         };
     }
-
-
-    /**
-     * 操作日志记录
-     *
-     * @param tenant
-     * @param operLog 操作日志信息
-     * @return 任务task
-     */
-    public static TimerTask recordOper(String tenant, final SysOperLog operLog) {
-        return new TimerTask() {
-            @Override
-            public void run() {
-                //切换数据源
-                DynamicDataSourceContextHolder.setDataSourceKey(tenant);
-                // 远程查询操作地点
-                operLog.setOperLocation(AddressUtils.getRealAddressByIP(operLog.getOperIp()));
-                SpringUtils.getBean(ISysOperLogService.class).insertOperlog(operLog);
-            }
-        };
-    }
 }
@@ -1,9 +1,13 @@
 package com.ec.auth.security.filter;
 
+import com.ec.auth.trace.RequestTrace;
+import com.ec.auth.trace.TraceStage;
 import com.ec.auth.web.service.TokenService;
+import com.ec.common.filter.MdcFilter;
 import com.ec.common.core.domain.model.LoginUser;
 import com.ec.common.utils.SecurityUtils;
 import com.ec.common.utils.StringUtils;
+import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -47,6 +51,16 @@ public class JwtAuthenticationTokenFilter extends OncePerRequestFilter {
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
             throws ServletException, IOException {
+        long start = RequestTrace.start();
+        try {
+            authenticate(request);
+        } finally {
+            RequestTrace.stop(TraceStage.AUTH, start);
+        }
+        chain.doFilter(request, response);
+    }
+
+    private void authenticate(HttpServletRequest request) throws IOException {
         LoginUser loginUser = tokenService.getLoginUser(request);
         if (StringUtils.isNotNull(loginUser) && StringUtils.isNull(SecurityUtils.getAuthentication())) {
             //判断tenant是否与令牌信息一致
@@ -59,7 +73,7 @@ public class JwtAuthenticationTokenFilter extends OncePerRequestFilter {
             UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(loginUser, null, loginUser.getAuthorities());
             authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
             SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+            MDC.put(MdcFilter.USERNAME, loginUser.getUsername());
         }
-        chain.doFilter(request, response);
     }
 }
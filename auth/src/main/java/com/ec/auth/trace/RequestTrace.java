@@ -0,0 +1,87 @@
+package com.ec.auth.trace;
+
+/**
+ * 当前请求的分阶段耗时
+ * <p>
+ * 由 {@link RequestTraceFilter} 在请求开始时绑定到当前线程，各阶段通过
+ * {@code long start = RequestTrace.start(); ... RequestTrace.stop(stage, start);} 累计耗时。
+ * 当前线程没有请求时（如异步任务、定时任务）不做任何统计。
+ * </p>
+ *
+ * @author ec
+ */
+public final class RequestTrace {
+    private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+
+    private static final TraceStage[] STAGES = TraceStage.values();
+
+    private final long startNanos = System.nanoTime();
+
+    private final long[] nanos = new long[STAGES.length];
+
+    private final int[] counts = new int[STAGES.length];
+
+    private RequestTrace() {
+    }
+
+    static RequestTrace begin() {
+        RequestTrace trace = new RequestTrace();
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * 开始统计一个阶段
+     *
+     * @return 开始时间，当前线程没有请求时返回0
+     */
+    public static long start() {
+        return CURRENT.get() == null ? 0 : System.nanoTime();
+    }
+
+    /**
+     * 结束统计一个阶段，累计耗时和次数
+     *
+     * @param stage 阶段
+     * @param start {@link #start()} 的返回值
+     */
+    public static void stop(TraceStage stage, long start) {
+        if (start == 0) {
+            return;
+        }
+        RequestTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.nanos[stage.ordinal()] += System.nanoTime() - start;
+            trace.counts[stage.ordinal()]++;
+        }
+    }
+
+    /**
+     * 记录从请求开始到当前的耗时（只记录一次），用于统计进入处理器之前的过滤器链耗时
+     *
+     * @param stage 阶段
+     */
+    public static void mark(TraceStage stage) {
+        RequestTrace trace = CURRENT.get();
+        if (trace != null && trace.counts[stage.ordinal()] == 0) {
+            trace.nanos[stage.ordinal()] = System.nanoTime() - trace.startNanos;
+            trace.counts[stage.ordinal()] = 1;
+        }
+    }
+
+    long getStartNanos() {
+        return startNanos;
+    }
+
+    long getNanos(TraceStage stage) {
+        return nanos[stage.ordinal()];
+    }
+
+    int getCount(TraceStage stage) {
+        return counts[stage.ordinal()];
+    }
+}
@@ -0,0 +1,68 @@
+package com.ec.auth.trace;
+
+import com.ec.common.filter.MdcFilter;
+import com.ec.common.utils.StringUtils;
+import org.slf4j.MDC;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 请求耗时统计过滤器
+ * <p>
+ * 请求开始时绑定 {@link RequestTrace}，结束时若总耗时超过阈值，按租户+接口记录到 {@link SlowRequestRecorder}。
+ * 需在 {@link MdcFilter} 之后执行，以便取得请求编号、租户和用户。
+ * </p>
+ *
+ * @author ec
+ */
+public class RequestTraceFilter implements Filter {
+    private final SlowRequestRecorder recorder;
+
+    public RequestTraceFilter(SlowRequestRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        if (!recorder.isEnabled() || !(request instanceof HttpServletRequest)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        RequestTrace trace = RequestTrace.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RequestTrace.end();
+            long totalNanos = System.nanoTime() - trace.getStartNanos();
+            if (recorder.isSlow(totalNanos)) {
+                HttpServletRequest httpRequest = (HttpServletRequest) request;
+                recorder.record(new SlowRequest(StringUtils.nvl(MDC.get(MdcFilter.TENANT), ""), getEndpoint(httpRequest),
+                        MDC.get(MdcFilter.REQUEST_ID), MDC.get(MdcFilter.USERNAME),
+                        ((HttpServletResponse) response).getStatus(), trace, totalNanos));
+            }
+        }
+    }
+
+    /**
+     * 接口标识，优先使用匹配到的路径模式，避免路径参数产生大量不同的key
+     */
+    private static String getEndpoint(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+    }
+
+    @Override
+    public void destroy() {
+
+    }
+}
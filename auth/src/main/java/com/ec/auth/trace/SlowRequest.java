@@ -0,0 +1,102 @@
+package com.ec.auth.trace;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 慢请求记录
+ *
+ * @author ec
+ */
+public class SlowRequest {
+    private final String tenant;
+
+    private final String endpoint;
+
+    private final String requestId;
+
+    private final String username;
+
+    private final int status;
+
+    private final long time;
+
+    private final long totalNanos;
+
+    private final Map<String, Object> stages;
+
+    SlowRequest(String tenant, String endpoint, String requestId, String username, int status, RequestTrace trace,
+                long totalNanos) {
+        this.tenant = tenant;
+        this.endpoint = endpoint;
+        this.requestId = requestId;
+        this.username = username;
+        this.status = status;
+        this.time = System.currentTimeMillis();
+        this.totalNanos = totalNanos;
+        this.stages = new LinkedHashMap<>();
+        for (TraceStage stage : TraceStage.values()) {
+            int count = trace.getCount(stage);
+            if (count > 0) {
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("millis", toMillis(trace.getNanos(stage)));
+                item.put("count", count);
+                stages.put(stage.name(), item);
+            }
+        }
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1000 / 1000.0;
+    }
+
+    long totalNanos() {
+        return totalNanos;
+    }
+
+    long time() {
+        return time;
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public Date getTime() {
+        return new Date(time);
+    }
+
+    public double getTotalMillis() {
+        return toMillis(totalNanos);
+    }
+
+    /**
+     * 各阶段耗时（毫秒）和次数
+     */
+    public Map<String, Object> getStages() {
+        return stages;
+    }
+
+    @Override
+    public String toString() {
+        return endpoint + " " + TimeUnit.NANOSECONDS.toMillis(totalNanos) + "ms " + stages;
+    }
+}
@@ -0,0 +1,152 @@
+package com.ec.auth.trace;
+
+import com.ec.common.utils.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 慢请求记录器
+ * <p>
+ * 每个租户+接口保留最慢的N个请求，存放在固定大小的槽位数组中，通过CAS替换最快或已过期的一条，无锁；
+ * 超过统计窗口的记录视为过期，可被任意新记录替换。只有耗时超过阈值的请求才会进入记录器。
+ * </p>
+ *
+ * @author ec
+ */
+@Component
+public class SlowRequestRecorder {
+    /**
+     * CAS替换的最大重试次数，竞争激烈时放弃本次记录
+     */
+    private static final int MAX_ATTEMPTS = 4;
+
+    /**
+     * 是否开启请求耗时统计
+     */
+    @Value("${trace.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 慢请求阈值（毫秒）
+     */
+    @Value("${trace.slowThreshold:500}")
+    private long slowThreshold;
+
+    /**
+     * 每个租户+接口保留的慢请求数
+     */
+    @Value("${trace.topN:10}")
+    private int topN;
+
+    /**
+     * 统计窗口（毫秒）
+     */
+    @Value("${trace.window:3600000}")
+    private long window;
+
+    /**
+     * 最多记录的租户+接口数
+     */
+    @Value("${trace.maxKeys:2000}")
+    private int maxKeys;
+
+    private final Map<String, AtomicReferenceArray<SlowRequest>> slowest = new ConcurrentHashMap<>();
+
+    /**
+     * 因超过最大key数而未记录的请求数
+     */
+    private final LongAdder overflow = new LongAdder();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 是否达到慢请求阈值
+     */
+    boolean isSlow(long totalNanos) {
+        return totalNanos >= TimeUnit.MILLISECONDS.toNanos(slowThreshold);
+    }
+
+    /**
+     * 记录一个慢请求
+     */
+    void record(SlowRequest request) {
+        String key = request.getTenant() + ' ' + request.getEndpoint();
+        AtomicReferenceArray<SlowRequest> slots = slowest.get(key);
+        if (slots == null) {
+            if (slowest.size() >= maxKeys) {
+                overflow.increment();
+                return;
+            }
+            slots = slowest.computeIfAbsent(key, k -> new AtomicReferenceArray<>(Math.max(1, topN)));
+        }
+        long expire = request.time() - window;
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            int victim = 0;
+            SlowRequest current = null;
+            for (int i = 0; i < slots.length(); i++) {
+                SlowRequest slot = slots.get(i);
+                if (slot == null || slot.time() < expire) {
+                    victim = i;
+                    current = slot;
+                    break;
+                }
+                if (current == null || slot.totalNanos() < current.totalNanos()) {
+                    victim = i;
+                    current = slot;
+                }
+            }
+            if (current != null && current.time() >= expire && current.totalNanos() >= request.totalNanos()) {
+                return;
+            }
+            if (slots.compareAndSet(victim, current, request)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 查询统计窗口内的慢请求，按耗时倒序
+     *
+     * @param tenant   租户，为空时不限
+     * @param endpoint 接口（模糊匹配），为空时不限
+     * @return 慢请求列表
+     */
+    public List<SlowRequest> list(String tenant, String endpoint) {
+        long expire = System.currentTimeMillis() - window;
+        List<SlowRequest> list = new ArrayList<>();
+        for (AtomicReferenceArray<SlowRequest> slots : slowest.values()) {
+            for (int i = 0; i < slots.length(); i++) {
+                SlowRequest slot = slots.get(i);
+                if (slot != null && slot.time() >= expire
+                        && (StringUtils.isEmpty(tenant) || tenant.equals(slot.getTenant()))
+                        && (StringUtils.isEmpty(endpoint) || StringUtils.contains(slot.getEndpoint(), endpoint))) {
+                    list.add(slot);
+                }
+            }
+        }
+        list.sort(Comparator.comparingLong(SlowRequest::totalNanos).reversed());
+        return list;
+    }
+
+    /**
+     * 清空记录
+     */
+    public void clear() {
+        slowest.clear();
+    }
+
+    public long getOverflowCount() {
+        return overflow.sum();
+    }
+}
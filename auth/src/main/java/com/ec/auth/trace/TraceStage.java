@@ -0,0 +1,26 @@
+package com.ec.auth.trace;
+
+/**
+ * 请求耗时统计的阶段
+ * <p>各阶段耗时独立累计，可能相互包含（如过滤器链包含令牌校验，令牌校验包含Redis）</p>
+ *
+ * @author ec
+ */
+public enum TraceStage {
+    FILTER("过滤器链"),
+    AUTH("令牌校验"),
+    TENANT("租户切换"),
+    ASPECT("切面"),
+    SQL("SQL"),
+    REDIS("Redis");
+
+    private final String info;
+
+    TraceStage(String info) {
+        this.info = info;
+    }
+
+    public String getInfo() {
+        return info;
+    }
+}
@@ -3,12 +3,14 @@ package com.ec;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * 主程序
  *
  * @author ec
  */
+@EnableScheduling
 @SpringBootApplication(scanBasePackages = "com", exclude = {DataSourceAutoConfiguration.class})
 public class ErpCrmApplication {
     public static void main(String[] args) {
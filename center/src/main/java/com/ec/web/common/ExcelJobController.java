@@ -0,0 +1,78 @@
+package com.ec.web.common;
+
+import com.ec.auth.datasource.DynamicDataSourceContextHolder;
+import com.ec.auth.manager.ExcelJobManager;
+import com.ec.common.core.controller.BaseController;
+import com.ec.common.core.domain.AjaxResult;
+import com.ec.common.core.domain.model.ExcelJob;
+import com.ec.common.utils.StringUtils;
+import com.ec.common.utils.file.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+
+/**
+ * 导入导出任务
+ *
+ * @author ec
+ */
+@RestController
+@RequestMapping("/common/excel/job")
+public class ExcelJobController extends BaseController {
+    private static final Logger log = LoggerFactory.getLogger(ExcelJobController.class);
+
+    @Autowired
+    private ExcelJobManager excelJobManager;
+
+    /**
+     * 查询任务状态和进度
+     */
+    @GetMapping("/{jobId}")
+    public AjaxResult getInfo(@PathVariable String jobId) {
+        ExcelJob job = getOwnJob(jobId);
+        if (job == null) {
+            return AjaxResult.error("任务不存在或已过期");
+        }
+        return AjaxResult.success(job);
+    }
+
+    /**
+     * 下载导出任务的结果文件
+     */
+    @GetMapping("/{jobId}/download")
+    public void download(@PathVariable String jobId, HttpServletResponse response) {
+        ExcelJob job = getOwnJob(jobId);
+        File file = job != null && ExcelJob.STATUS_SUCCESS.equals(job.getStatus()) ? excelJobManager.getResultFile(job) : null;
+        if (file == null) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        try {
+            response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+            FileUtils.setAttachmentResponseHeader(response, job.getName() + ".xlsx");
+            FileUtils.writeBytes(file.getPath(), response.getOutputStream());
+        } catch (Exception e) {
+            log.error("下载文件失败", e);
+        }
+    }
+
+    /**
+     * 只能查看本人在当前租户下提交的任务
+     */
+    private ExcelJob getOwnJob(String jobId) {
+        ExcelJob job = excelJobManager.getJob(jobId);
+        if (job == null || !StringUtils.equals(job.getCreateBy(), getUsername())
+                || !StringUtils.equals(job.getTenant(), StringUtils.nvl(DynamicDataSourceContextHolder.getDataSourceKey(), ""))) {
+            return null;
+        }
+        return job;
+    }
+}
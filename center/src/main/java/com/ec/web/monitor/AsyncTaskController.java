@@ -0,0 +1,27 @@
+package com.ec.web.monitor;
+
+import com.ec.auth.manager.AsyncManager;
+import com.ec.common.core.domain.AjaxResult;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 异步任务监控
+ *
+ * @author ec
+ */
+@RestController
+@RequestMapping("/monitor/async")
+public class AsyncTaskController {
+
+    /**
+     * 获取各类别异步任务队列的深度、等待时间和拒绝次数
+     */
+    @PreAuthorize("@ss.hasPermi('monitor:async:list')")
+    @GetMapping
+    public AjaxResult list() {
+        return AjaxResult.success(AsyncManager.me().getStatistics());
+    }
+}
@@ -0,0 +1,48 @@
+package com.ec.web.monitor;
+
+import com.ec.auth.aspectj.RateLimiterAspect;
+import com.ec.auth.limiter.RateLimitBucket;
+import com.ec.common.core.domain.AjaxResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 限流监控
+ *
+ * @author ec
+ */
+@RestController
+@RequestMapping("/monitor/rateLimiter")
+public class RateLimiterController {
+
+    @Autowired
+    private RateLimiterAspect rateLimiterAspect;
+
+    /**
+     * 获取各限流key在本节点的放行/拒绝次数
+     */
+    @PreAuthorize("@ss.hasPermi('monitor:rateLimiter:list')")
+    @GetMapping
+    public AjaxResult list() {
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (RateLimitBucket bucket : rateLimiterAspect.getBuckets().values()) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("key", bucket.getKey());
+            item.put("count", bucket.getCount());
+            item.put("time", bucket.getTime());
+            item.put("allowed", bucket.getAllowedCount());
+            item.put("rejected", bucket.getRejectedCount());
+            item.put("blocked", bucket.isBlocked());
+            list.add(item);
+        }
+        return AjaxResult.success(list);
+    }
+}
@@ -0,0 +1,44 @@
+package com.ec.web.monitor;
+
+import com.ec.auth.trace.SlowRequestRecorder;
+import com.ec.common.core.domain.AjaxResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 慢请求监控
+ *
+ * @author ec
+ */
+@RestController
+@RequestMapping("/monitor/slowRequest")
+public class SlowRequestController {
+
+    @Autowired
+    private SlowRequestRecorder slowRequestRecorder;
+
+    /**
+     * 获取各租户+接口最慢的请求及各阶段耗时
+     */
+    @PreAuthorize("@ss.hasPermi('monitor:slowRequest:list')")
+    @GetMapping
+    public AjaxResult list(String tenant, String endpoint) {
+        AjaxResult ajax = AjaxResult.success(slowRequestRecorder.list(tenant, endpoint));
+        ajax.put("overflow", slowRequestRecorder.getOverflowCount());
+        return ajax;
+    }
+
+    /**
+     * 清空慢请求记录
+     */
+    @PreAuthorize("@ss.hasPermi('monitor:slowRequest:remove')")
+    @DeleteMapping("/clean")
+    public AjaxResult clean() {
+        slowRequestRecorder.clear();
+        return AjaxResult.success();
+    }
+}
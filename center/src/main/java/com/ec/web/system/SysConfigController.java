@@ -1,11 +1,14 @@
 package com.ec.web.system;
 
+import com.ec.auth.manager.ExcelJobManager;
 import com.ec.common.annotation.Log;
 import com.ec.common.constant.UserConstants;
 import com.ec.common.core.controller.BaseController;
 import com.ec.common.core.domain.AjaxResult;
 import com.ec.common.core.page.TableDataInfo;
 import com.ec.common.enums.BusinessType;
+import com.ec.common.utils.StringUtils;
+import com.ec.common.utils.poi.CsvUtil;
 import com.ec.common.utils.poi.ExcelUtil;
 import com.ec.sys.domain.SysConfig;
 import com.ec.sys.service.ISysConfigService;
@@ -30,6 +33,9 @@ public class SysConfigController extends BaseController {
     @Autowired
     private ISysConfigService configService;
 
+    @Autowired
+    private ExcelJobManager excelJobManager;
+
     /**
      * 获取参数配置列表
      * <p>@PreAuthorize注解会在方法执行前进行权限验证，支持Spring EL表达式，它是基于方法注解的权限解决方案。</p>
@@ -45,9 +51,38 @@ public class SysConfigController extends BaseController {
 
     @Log(title = "参数管理",businessType = BusinessType.EXPORT)
     public void export(HttpServletResponse response,SysConfig config){
-        List<SysConfig> list = configService.selectConfigList(config);
         ExcelUtil<SysConfig> util = new ExcelUtil<SysConfig>(SysConfig.class);
-        util.exportExcel(response, list, "参数数据");
+        util.exportExcel(response, "参数数据", StringUtils.EMPTY, consumer -> configService.exportConfigList(config, consumer));
+    }
+
+    /**
+     * 导出参数配置为CSV
+     *
+     * @param gzip 是否gzip压缩
+     */
+    @PreAuthorize("@ss.hasPermi('system:config:export')")
+    @Log(title = "参数管理", businessType = BusinessType.EXPORT)
+    @PostMapping("/exportCsv")
+    public void exportCsv(HttpServletResponse response, SysConfig config, boolean gzip) {
+        CsvUtil<SysConfig> util = new CsvUtil<SysConfig>(SysConfig.class);
+        util.exportCsv(response, "参数数据", gzip, consumer -> configService.exportConfigList(config, consumer));
+    }
+
+    /**
+     * 后台导出参数配置，返回任务ID，通过 /common/excel/job/{jobId} 查询进度和下载
+     */
+    @PreAuthorize("@ss.hasPermi('system:config:export')")
+    @Log(title = "参数管理", businessType = BusinessType.EXPORT)
+    @PostMapping("/exportJob")
+    public AjaxResult exportJob(SysConfig config) {
+        String jobId = excelJobManager.submitExport("参数数据", (out, progress) -> {
+            ExcelUtil<SysConfig> util = new ExcelUtil<SysConfig>(SysConfig.class);
+            util.exportExcel(out, "参数数据", StringUtils.EMPTY, consumer -> configService.exportConfigList(config, row -> {
+                consumer.accept(row);
+                progress.step();
+            }));
+        });
+        return AjaxResult.success(jobId);
     }
 
     /**
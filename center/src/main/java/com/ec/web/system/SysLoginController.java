@@ -4,7 +4,6 @@ import com.ec.auth.web.service.SysLoginService;
 import com.ec.auth.web.service.SysPermissionService;
 import com.ec.common.constant.Constants;
 import com.ec.common.core.domain.AjaxResult;
-import com.ec.common.core.domain.entity.SysMenu;
 import com.ec.common.core.domain.entity.SysUser;
 import com.ec.common.core.domain.model.LoginBody;
 import com.ec.common.utils.SecurityUtils;
@@ -17,7 +16,6 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
 import javax.servlet.http.HttpServletRequest;
-import java.util.List;
 import java.util.Set;
 
 /**
@@ -85,7 +83,6 @@ public class SysLoginController {
     @GetMapping("getRouters")
     public AjaxResult getRouters() {
         Long userId = SecurityUtils.getUserId();
-        List<SysMenu> menus = menuService.selectMenuTreeByUserId(userId);
-        return AjaxResult.success(menuService.buildMenus(menus));
+        return AjaxResult.success(menuService.selectRoutersByUserId(userId));
     }
 }
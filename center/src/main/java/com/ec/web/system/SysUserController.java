@@ -0,0 +1,69 @@
+package com.ec.web.system;
+
+import com.ec.auth.manager.ExcelJobManager;
+import com.ec.common.annotation.Log;
+import com.ec.common.core.controller.BaseController;
+import com.ec.common.core.domain.AjaxResult;
+import com.ec.common.core.domain.entity.SysUser;
+import com.ec.common.enums.BusinessType;
+import com.ec.common.utils.poi.ExcelUtil;
+import com.ec.sys.service.ISysUserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * 用户信息 导入处理
+ *
+ * @author ec
+ */
+@RestController
+@RequestMapping("/system/user")
+public class SysUserController extends BaseController {
+
+    @Autowired
+    private ISysUserService userService;
+
+    @Autowired
+    private ExcelJobManager excelJobManager;
+
+    /**
+     * 后台导入用户，返回任务ID，通过 /common/excel/job/{jobId} 查询进度和导入结果
+     *
+     * @param file          用户数据文件
+     * @param updateSupport 账号已存在时是否更新
+     */
+    @PreAuthorize("@ss.hasPermi('system:user:import')")
+    @Log(title = "用户管理", businessType = BusinessType.IMPORT)
+    @PostMapping("/importJob")
+    public AjaxResult importJob(MultipartFile file, boolean updateSupport) throws Exception {
+        String operName = getUsername();
+        String jobId = excelJobManager.submitImport("用户数据", file, (upload, progress) -> {
+            ExcelUtil<SysUser> util = new ExcelUtil<SysUser>(SysUser.class);
+            List<SysUser> userList;
+            try (InputStream is = Files.newInputStream(upload.toPath())) {
+                userList = util.importExcel(is);
+            }
+            progress.setTotal(userList.size());
+            String message = userService.importUser(userList, updateSupport, operName);
+            progress.step(userList.size());
+            return message;
+        });
+        return AjaxResult.success(jobId);
+    }
+
+    /**
+     * 下载用户导入模板
+     */
+    @PostMapping("/importTemplate")
+    public void importTemplate(HttpServletResponse response) {
+        ExcelUtil<SysUser> util = new ExcelUtil<SysUser>(SysUser.class);
+        util.importTemplateExcel(response, "用户数据");
+    }
+}
@@ -403,7 +403,8 @@ CREATE TABLE `sys_logininfor`
     `status`         char(1)      DEFAULT '0' COMMENT '登录状态（0成功 1失败）',
     `msg`            varchar(255) DEFAULT '' COMMENT '提示消息',
     `login_time`     datetime     DEFAULT NULL COMMENT '访问时间',
-    PRIMARY KEY (`info_id`) USING BTREE
+    PRIMARY KEY (`info_id`) USING BTREE,
+    KEY `idx_login_time` (`login_time`) USING BTREE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='系统访问记录';
 
 -- ----------------------------
@@ -746,7 +747,8 @@ CREATE TABLE `sys_oper_log`
     `status`         int(1) DEFAULT '0' COMMENT '操作状态（0正常 1异常）',
     `error_msg`      varchar(2000) DEFAULT '' COMMENT '错误消息',
     `oper_time`      datetime      DEFAULT NULL COMMENT '操作时间',
-    PRIMARY KEY (`oper_id`) USING BTREE
+    PRIMARY KEY (`oper_id`) USING BTREE,
+    KEY `idx_oper_time` (`oper_time`) USING BTREE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='操作日志记录';
 
 -- ----------------------------
@@ -1,6 +1,7 @@
 package com.ec.common.annotation;
 
 import com.ec.common.constant.Constants;
+import com.ec.common.enums.LimitMode;
 import com.ec.common.enums.LimitType;
 
 import java.lang.annotation.*;
@@ -33,4 +34,9 @@ public @interface RateLimiter {
      * 限流类型
      */
     public LimitType limitType() default LimitType.DEFAULT;
+
+    /**
+     * 限流模式
+     */
+    public LimitMode mode() default LimitMode.TOKEN_BUCKET;
 }
@@ -19,6 +19,10 @@ public class ErpCrmConfig {
      * 获取地址开关
      */
     private static boolean addressEnabled;
+    /**
+     * 离线IP地址库文件路径
+     */
+    private static String ipDbPath;
     /**
      * 验证码类型
      */
@@ -56,6 +60,14 @@ public class ErpCrmConfig {
         ErpCrmConfig.addressEnabled = addressEnabled;
     }
 
+    public static String getIpDbPath() {
+        return ipDbPath;
+    }
+
+    public void setIpDbPath(String ipDbPath) {
+        ErpCrmConfig.ipDbPath = ipDbPath;
+    }
+
     public static String getCaptchaType() {
         return captchaType;
     }
@@ -85,6 +97,13 @@ public class ErpCrmConfig {
         return getProfile() + "/download/";
     }
 
+    /**
+     * 获取日志归档路径
+     */
+    public static String getArchivePath() {
+        return getProfile() + "/archive";
+    }
+
     /**
      * 获取上传路径
      */
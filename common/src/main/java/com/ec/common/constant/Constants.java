@@ -78,6 +78,16 @@ public class Constants {
      */
     public static final String RATE_LIMIT_KEY = "rate_limit:";
 
+    /**
+     * 导入导出任务 redis key
+     */
+    public static final String EXCEL_JOB_KEY = "excel_job:";
+
+    /**
+     * 日志归档锁 redis key
+     */
+    public static final String LOG_ARCHIVE_LOCK_KEY = "log_archive_lock:";
+
     /**
      * 验证码有效期（分钟）
      */
@@ -130,6 +140,26 @@ public class Constants {
      */
     public static final String SYS_CONFIG_KEY = "sys_config:";
 
+    /**
+     * 路由菜单 cache key
+     */
+    public static final String SYS_ROUTER_KEY = "sys_router:";
+
+    /**
+     * 路由菜单版本 cache key
+     */
+    public static final String SYS_ROUTER_VERSION_KEY = "sys_router_version:";
+
+    /**
+     * 部门层级版本 cache key
+     */
+    public static final String SYS_DEPT_VERSION_KEY = "sys_dept_version:";
+
+    /**
+     * 数据权限版本 cache key
+     */
+    public static final String SYS_DATA_SCOPE_VERSION_KEY = "sys_data_scope_version:";
+
     /**
      * 字典管理 cache key
      */
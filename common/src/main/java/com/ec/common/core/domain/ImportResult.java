@@ -0,0 +1,110 @@
+package com.ec.common.core.domain;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量导入结果
+ * <p>
+ * 按行记录每条数据的导入结果，调用方可直接返回给前端或拼接成提示信息。
+ * </p>
+ *
+ * @author ec
+ */
+public class ImportResult implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 成功条数
+     */
+    private int successNum;
+
+    /**
+     * 失败条数
+     */
+    private int failureNum;
+
+    /**
+     * 每行结果（按行号顺序）
+     */
+    private final List<Row> rows = new ArrayList<>();
+
+    /**
+     * 记录成功行
+     *
+     * @param rowNum  行号（从1开始）
+     * @param key     数据标识，如账号
+     * @param message 结果描述
+     */
+    public void success(int rowNum, String key, String message) {
+        successNum++;
+        rows.add(new Row(rowNum, key, true, message));
+    }
+
+    /**
+     * 记录失败行
+     *
+     * @param rowNum  行号（从1开始）
+     * @param key     数据标识，如账号
+     * @param message 失败原因
+     */
+    public void failure(int rowNum, String key, String message) {
+        failureNum++;
+        rows.add(new Row(rowNum, key, false, message));
+    }
+
+    public int getSuccessNum() {
+        return successNum;
+    }
+
+    public int getFailureNum() {
+        return failureNum;
+    }
+
+    public boolean hasFailure() {
+        return failureNum > 0;
+    }
+
+    public List<Row> getRows() {
+        return rows;
+    }
+
+    /**
+     * 单行结果
+     */
+    public static class Row implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final int rowNum;
+
+        private final String key;
+
+        private final boolean success;
+
+        private final String message;
+
+        public Row(int rowNum, String key, boolean success, String message) {
+            this.rowNum = rowNum;
+            this.key = key;
+            this.success = success;
+            this.message = message;
+        }
+
+        public int getRowNum() {
+            return rowNum;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.ec.common.core.domain.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 导入导出任务
+ *
+ * @author ec
+ */
+public class ExcelJob implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 任务类型 导出
+     */
+    public static final String TYPE_EXPORT = "export";
+
+    /**
+     * 任务类型 导入
+     */
+    public static final String TYPE_IMPORT = "import";
+
+    /**
+     * 状态 等待执行
+     */
+    public static final String STATUS_WAITING = "0";
+
+    /**
+     * 状态 执行中
+     */
+    public static final String STATUS_RUNNING = "1";
+
+    /**
+     * 状态 成功
+     */
+    public static final String STATUS_SUCCESS = "2";
+
+    /**
+     * 状态 失败
+     */
+    public static final String STATUS_FAILED = "3";
+
+    /**
+     * 任务ID
+     */
+    private String jobId;
+
+    /**
+     * 任务类型（export导出 import导入）
+     */
+    private String type;
+
+    /**
+     * 任务名称
+     */
+    private String name;
+
+    /**
+     * 状态（0等待执行 1执行中 2成功 3失败）
+     */
+    private String status;
+
+    /**
+     * 总条数，未知时为0
+     */
+    private long total;
+
+    /**
+     * 已处理条数
+     */
+    private long processed;
+
+    /**
+     * 结果文件名（下载目录下的相对路径）
+     */
+    @JsonIgnore
+    private String fileName;
+
+    /**
+     * 结果信息
+     */
+    private String message;
+
+    /**
+     * 租户
+     */
+    @JsonIgnore
+    private String tenant;
+
+    /**
+     * 提交者
+     */
+    private String createBy;
+
+    /**
+     * 提交时间
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private Date createTime;
+
+    /**
+     * 开始时间
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private Date startTime;
+
+    /**
+     * 结束时间
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private Date endTime;
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public long getProcessed() {
+        return processed;
+    }
+
+    public void setProcessed(long processed) {
+        this.processed = processed;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    public void setTenant(String tenant) {
+        this.tenant = tenant;
+    }
+
+    public String getCreateBy() {
+        return createBy;
+    }
+
+    public void setCreateBy(String createBy) {
+        this.createBy = createBy;
+    }
+
+    public Date getCreateTime() {
+        return createTime;
+    }
+
+    public void setCreateTime(Date createTime) {
+        this.createTime = createTime;
+    }
+
+    public Date getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(Date startTime) {
+        this.startTime = startTime;
+    }
+
+    public Date getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(Date endTime) {
+        this.endTime = endTime;
+    }
+}
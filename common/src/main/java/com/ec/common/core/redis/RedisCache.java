@@ -6,6 +6,8 @@ import org.springframework.data.redis.core.HashOperations;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.*;
 import java.util.concurrent.TimeUnit;
@@ -43,6 +45,19 @@ public class RedisCache {
         redisTemplate.opsForValue().set(key, value, timeout, timeUnit);
     }
 
+    /**
+     * 键不存在时缓存对象（SET NX PX，一次往返完成判断和写入）
+     *
+     * @param key      缓存的键值
+     * @param value    缓存的值
+     * @param timeout  时间
+     * @param timeUnit 时间颗粒度
+     * @return true=写入成功；false=键已存在
+     */
+    public <T> boolean setCacheObjectIfAbsent(final String key, final T value, final long timeout, final TimeUnit timeUnit) {
+        return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, value, timeout, timeUnit));
+    }
+
     /**
      * 设置有效时间
      *
@@ -66,6 +81,39 @@ public class RedisCache {
         return redisTemplate.expire(key, timeout, unit);
     }
 
+    /**
+     * 计数加1，key不存在时从0开始
+     *
+     * @param key 缓存的键值
+     * @return 加1后的值
+     */
+    public long increment(final String key) {
+        Long value = redisTemplate.opsForValue().increment(key);
+        return value == null ? 0 : value;
+    }
+
+    /**
+     * 计数加1，在事务中调用时于事务提交后执行，事务回滚则不执行；用于递增缓存版本使缓存失效
+     *
+     * @param keys 缓存的键值
+     */
+    public void incrementAfterCommit(final String... keys) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    for (String key : keys) {
+                        increment(key);
+                    }
+                }
+            });
+        } else {
+            for (String key : keys) {
+                increment(key);
+            }
+        }
+    }
+
     /**
      * 获得缓存的基本对象。
      *
@@ -0,0 +1,18 @@
+package com.ec.common.enums;
+
+/**
+ * 限流模式
+ *
+ * @author ec
+ */
+public enum LimitMode {
+    /**
+     * 本地令牌桶，批量与Redis计数对账（默认，高性能）
+     */
+    TOKEN_BUCKET,
+
+    /**
+     * Redis滑动窗口，每次请求访问Redis（精确）
+     */
+    SLIDING_WINDOW
+}
@@ -0,0 +1,138 @@
+package com.ec.common.filter;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 池化的请求体缓冲区
+ * <p>
+ * 请求体只在缓冲区中保存一份，读取时直接返回缓冲区上的视图，不再复制；
+ * 请求结束后通过 {@link #release()} 归还，扩容过大的缓冲区不归还，避免长期占用内存。
+ * </p>
+ *
+ * @author ec
+ */
+public class BodyBuffer extends OutputStream {
+    private static final int INITIAL_SIZE = 4096;
+
+    /**
+     * 归还到池中的缓冲区最大容量
+     */
+    private static final int MAX_POOLED_SIZE = 256 * 1024;
+
+    private static final BlockingQueue<BodyBuffer> POOL = new ArrayBlockingQueue<>(64);
+
+    private byte[] buf = new byte[INITIAL_SIZE];
+
+    private int count;
+
+    /**
+     * 最大长度
+     */
+    private int limit;
+
+    private BodyBuffer() {
+    }
+
+    /**
+     * 从池中获取缓冲区
+     *
+     * @param limit 最大长度，超过时写入抛出 {@link BodyTooLargeException}
+     * @return 缓冲区
+     */
+    public static BodyBuffer acquire(int limit) {
+        BodyBuffer buffer = POOL.poll();
+        if (buffer == null) {
+            buffer = new BodyBuffer();
+        }
+        buffer.count = 0;
+        buffer.limit = limit;
+        return buffer;
+    }
+
+    /**
+     * 归还缓冲区，归还后不可再使用
+     */
+    public void release() {
+        count = 0;
+        if (buf.length <= MAX_POOLED_SIZE) {
+            POOL.offer(this);
+        }
+    }
+
+    /**
+     * 读取输入流的全部内容
+     */
+    public BodyBuffer readFrom(InputStream in) throws IOException {
+        int n;
+        do {
+            if (count == limit) {
+                // 已达到最大长度，只有确实还有数据时才算超长
+                if (in.read() != -1) {
+                    throw new BodyTooLargeException(limit);
+                }
+                break;
+            }
+            ensureCapacity(count + 1);
+            n = in.read(buf, count, buf.length - count);
+            if (n > 0) {
+                count += n;
+            }
+        } while (n != -1);
+        return this;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureCapacity(count + 1);
+        buf[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureCapacity(count + len);
+        System.arraycopy(b, off, buf, count, len);
+        count += len;
+    }
+
+    private void ensureCapacity(int capacity) throws BodyTooLargeException {
+        if (capacity > limit) {
+            throw new BodyTooLargeException(limit);
+        }
+        if (capacity > buf.length) {
+            buf = Arrays.copyOf(buf, Math.min(limit, Math.max(capacity, buf.length << 1)));
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * 缓冲区内容的输入流视图（不复制）
+     */
+    public InputStream getInputStream() {
+        return new ByteArrayInputStream(buf, 0, count);
+    }
+
+    public String toString(Charset charset) {
+        return new String(buf, 0, count, charset);
+    }
+
+    /**
+     * 请求体超过最大长度
+     */
+    public static class BodyTooLargeException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public BodyTooLargeException(int limit) {
+            super("请求体超过最大长度" + limit + "字节");
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.ec.common.filter;
+
+import com.ec.common.utils.StringUtils;
+import com.ec.common.utils.uuid.IdUtils;
+import org.slf4j.MDC;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 日志上下文过滤器
+ * <p>
+ * 将请求编号、租户放入MDC供日志输出（用户名在令牌校验通过后放入），请求结束后清除。
+ * 请求头带有合法的 X-Request-Id 时沿用，否则生成新的编号并通过响应头返回。
+ * </p>
+ *
+ * @author ec
+ */
+public class MdcFilter implements Filter {
+    public static final String REQUEST_ID_HEADER = "X-Request-Id";
+
+    public static final String REQUEST_ID = "requestId";
+
+    public static final String TENANT = "tenant";
+
+    public static final String USERNAME = "username";
+
+    /**
+     * 放入MDC的请求头最大长度
+     */
+    private static final int MAX_HEADER_LENGTH = 64;
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        if (!(request instanceof HttpServletRequest)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        String requestId = httpRequest.getHeader(REQUEST_ID_HEADER);
+        if (!isSafe(requestId)) {
+            requestId = IdUtils.fastSimpleUUID();
+        }
+        MDC.put(REQUEST_ID, requestId);
+        String tenant = httpRequest.getHeader(TENANT);
+        if (isSafe(tenant)) {
+            MDC.put(TENANT, tenant);
+        }
+        ((HttpServletResponse) response).setHeader(REQUEST_ID_HEADER, requestId);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            MDC.clear();
+        }
+    }
+
+    /**
+     * 只接受由字母、数字、'-'、'_'组成的请求头，避免日志注入
+     */
+    private static boolean isSafe(String value) {
+        if (StringUtils.isEmpty(value) || value.length() > MAX_HEADER_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (!(c >= '0' && c <= '9' || c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c == '-' || c == '_')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void destroy() {
+
+    }
+}
@@ -1,10 +1,11 @@
 package com.ec.common.filter;
 
 import com.ec.common.utils.StringUtils;
-import org.springframework.http.MediaType;
+import org.springframework.web.util.WebUtils;
 
 import javax.servlet.*;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 
 /**
@@ -13,23 +14,39 @@ import java.io.IOException;
  * @author ec
  */
 public class RepeatableFilter implements Filter {
+    /**
+     * 请求体最大长度
+     */
+    private int maxBodySize = RepeatedlyRequestWrapper.DEFAULT_MAX_BODY_SIZE;
+
     @Override
     public void init(FilterConfig filterConfig) throws ServletException {
-
+        String tempMaxBodySize = filterConfig.getInitParameter("maxBodySize");
+        if (StringUtils.isNotEmpty(tempMaxBodySize)) {
+            maxBodySize = Integer.parseInt(tempMaxBodySize);
+        }
     }
 
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
             throws IOException, ServletException {
-        ServletRequest requestWrapper = null;
-        if (request instanceof HttpServletRequest
-                && StringUtils.startsWithIgnoreCase(request.getContentType(), MediaType.APPLICATION_JSON_VALUE)) {
-            requestWrapper = new RepeatedlyRequestWrapper((HttpServletRequest) request, response);
-        }
-        if (null == requestWrapper) {
+        // 非json请求，或请求体已由前面的过滤器（如XssFilter）缓存
+        if (!(request instanceof HttpServletRequest) || !RepeatedlyRequestWrapper.isJsonRequest(request)
+                || WebUtils.getNativeRequest(request, RepeatedlyRequestWrapper.class) != null) {
             chain.doFilter(request, response);
-        } else {
+            return;
+        }
+        RepeatedlyRequestWrapper requestWrapper;
+        try {
+            requestWrapper = new RepeatedlyRequestWrapper((HttpServletRequest) request, response, maxBodySize, false);
+        } catch (BodyBuffer.BodyTooLargeException e) {
+            ((HttpServletResponse) response).sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, e.getMessage());
+            return;
+        }
+        try {
             chain.doFilter(requestWrapper, response);
+        } finally {
+            requestWrapper.release();
         }
     }
 
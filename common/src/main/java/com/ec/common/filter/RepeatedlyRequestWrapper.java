@@ -1,48 +1,133 @@
 package com.ec.common.filter;
 
-import com.ec.common.utils.http.HttpHelper;
+import com.ec.common.utils.StringUtils;
+import com.ec.common.utils.html.JsonXssSanitizer;
+import org.springframework.http.MediaType;
 
 import javax.servlet.ReadListener;
 import javax.servlet.ServletInputStream;
+import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletRequestWrapper;
 import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 
 /**
  * 构建可重复读取inputStream的request
+ * <p>
+ * 请求体在构造时读入池化缓冲区（可同时做XSS过滤），之后每次 {@link #getInputStream()} 都是缓冲区上的视图。
+ * 一个请求只创建一个该包装，其他过滤器、拦截器通过
+ * {@code WebUtils.getNativeRequest(request, RepeatedlyRequestWrapper.class)} 共用；
+ * 创建者在请求结束后调用 {@link #release()} 归还缓冲区，归还后再读取请求体抛出 {@link IllegalStateException}。
+ * </p>
+ *
  * @author ec
  */
 public class RepeatedlyRequestWrapper extends HttpServletRequestWrapper {
-    private final byte[] body;
+    /**
+     * 请求体默认最大长度
+     */
+    public static final int DEFAULT_MAX_BODY_SIZE = 10 * 1024 * 1024;
+
+    /**
+     * 请求体缓冲区，归还后为空
+     */
+    private volatile BodyBuffer body;
 
     public RepeatedlyRequestWrapper(HttpServletRequest request, ServletResponse response) throws IOException {
+        this(request, response, DEFAULT_MAX_BODY_SIZE, false);
+    }
+
+    /**
+     * @param request     请求
+     * @param response    响应
+     * @param maxBodySize 请求体最大长度，超过时抛出 {@link BodyBuffer.BodyTooLargeException}
+     * @param xssClean    是否对JSON字符串值做XSS过滤
+     */
+    public RepeatedlyRequestWrapper(HttpServletRequest request, ServletResponse response, int maxBodySize, boolean xssClean)
+            throws IOException {
         super(request);
         request.setCharacterEncoding("UTF-8");
         response.setCharacterEncoding("UTF-8");
-        body = HttpHelper.getBodyString(request).getBytes("UTF-8");
+        BodyBuffer buffer = BodyBuffer.acquire(maxBodySize);
+        try (InputStream in = request.getInputStream()) {
+            if (xssClean) {
+                JsonXssSanitizer.sanitize(in, buffer, maxBodySize);
+            } else {
+                buffer.readFrom(in);
+            }
+        } catch (IOException | RuntimeException e) {
+            buffer.release();
+            throw e;
+        }
+        body = buffer;
+    }
+
+    /**
+     * 是否是Json请求
+     */
+    public static boolean isJsonRequest(ServletRequest request) {
+        return StringUtils.startsWithIgnoreCase(request.getContentType(), MediaType.APPLICATION_JSON_VALUE);
+    }
+
+    /**
+     * 获取请求体字符串
+     */
+    public String getBodyString() {
+        return body().toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 归还请求体缓冲区，由创建者在请求结束后调用
+     */
+    public void release() {
+        BodyBuffer buffer = body;
+        body = null;
+        if (buffer != null) {
+            buffer.release();
+        }
+    }
+
+    /**
+     * 未归还的请求体缓冲区，缓冲区归还后可能已被其他请求使用，不能再读取
+     */
+    private BodyBuffer body() {
+        BodyBuffer buffer = body;
+        if (buffer == null) {
+            throw new IllegalStateException("请求体缓冲区已归还，不能再读取");
+        }
+        return buffer;
     }
 
     @Override
     public BufferedReader getReader() throws IOException {
-        return new BufferedReader(new InputStreamReader(getInputStream()));
+        return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
     }
 
     @Override
     public ServletInputStream getInputStream() throws IOException {
-        final ByteArrayInputStream bais = new ByteArrayInputStream(body);
+        final InputStream bais = body().getInputStream();
+        // 每次读取都检查缓冲区是否已归还，避免通过之前取得的流读到其他请求的内容
         return new ServletInputStream() {
             @Override
             public int read() throws IOException {
+                body();
                 return bais.read();
             }
 
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                body();
+                return bais.read(b, off, len);
+            }
+
             @Override
             public int available() throws IOException {
-                return body.length;
+                return bais.available();
             }
 
             @Override
@@ -61,4 +146,14 @@ public class RepeatedlyRequestWrapper extends HttpServletRequestWrapper {
             }
         };
     }
+
+    @Override
+    public int getContentLength() {
+        return body().size();
+    }
+
+    @Override
+    public long getContentLengthLong() {
+        return body().size();
+    }
 }
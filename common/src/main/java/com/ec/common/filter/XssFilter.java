@@ -20,6 +20,11 @@ public class XssFilter implements Filter {
      */
     public List<String> excludes = new ArrayList<>();
 
+    /**
+     * 请求体最大长度
+     */
+    private int maxBodySize = RepeatedlyRequestWrapper.DEFAULT_MAX_BODY_SIZE;
+
     @Override
     public void init(FilterConfig filterConfig) throws ServletException {
         String tempExcludes = filterConfig.getInitParameter("excludes");
@@ -29,6 +34,10 @@ public class XssFilter implements Filter {
                 excludes.add(url[i]);
             }
         }
+        String tempMaxBodySize = filterConfig.getInitParameter("maxBodySize");
+        if (StringUtils.isNotEmpty(tempMaxBodySize)) {
+            maxBodySize = Integer.parseInt(tempMaxBodySize);
+        }
     }
 
     @Override
@@ -41,7 +50,23 @@ public class XssFilter implements Filter {
             return;
         }
         XssHttpServletRequestWrapper xssRequest = new XssHttpServletRequestWrapper((HttpServletRequest) request);
-        chain.doFilter(xssRequest, response);
+        if (!xssRequest.isJsonRequest()) {
+            chain.doFilter(xssRequest, response);
+            return;
+        }
+        // JSON请求体过滤后缓存，后续的RepeatableFilter等直接共用
+        RepeatedlyRequestWrapper bodyRequest;
+        try {
+            bodyRequest = new RepeatedlyRequestWrapper(xssRequest, response, maxBodySize, true);
+        } catch (BodyBuffer.BodyTooLargeException e) {
+            resp.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, e.getMessage());
+            return;
+        }
+        try {
+            chain.doFilter(bodyRequest, response);
+        } finally {
+            bodyRequest.release();
+        }
     }
 
     private boolean handleExcludeURL(HttpServletRequest request, HttpServletResponse response) {
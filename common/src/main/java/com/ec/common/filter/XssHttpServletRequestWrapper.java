@@ -1,20 +1,13 @@
 package com.ec.common.filter;
 
-import com.ec.common.utils.StringUtils;
 import com.ec.common.utils.html.EscapeUtil;
-import org.apache.commons.io.IOUtils;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 
-import javax.servlet.ReadListener;
-import javax.servlet.ServletInputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletRequestWrapper;
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
 
 /**
  * XSS过滤处理
+ * <p>JSON请求体由 {@link XssFilter} 包装为 {@link RepeatedlyRequestWrapper} 时过滤，只缓存一份</p>
  *
  * @author ec
  */
@@ -40,58 +33,12 @@ public class XssHttpServletRequestWrapper extends HttpServletRequestWrapper {
         return super.getParameterValues(name);
     }
 
-    @Override
-    public ServletInputStream getInputStream() throws IOException {
-        // 非json类型，直接返回
-        if (!isJsonRequest()) {
-            return super.getInputStream();
-        }
-
-        // 为空，直接返回
-        String json = IOUtils.toString(super.getInputStream(), "utf-8");
-        if (StringUtils.isEmpty(json)) {
-            return super.getInputStream();
-        }
-
-        // xss过滤
-        json = EscapeUtil.clean(json).trim();
-        byte[] jsonBytes = json.getBytes("utf-8");
-
-        final ByteArrayInputStream bis = new ByteArrayInputStream(jsonBytes);
-        return new ServletInputStream() {
-            @Override
-            public boolean isFinished() {
-                return true;
-            }
-
-            @Override
-            public boolean isReady() {
-                return true;
-            }
-
-            @Override
-            public int available() throws IOException {
-                return jsonBytes.length;
-            }
-
-            @Override
-            public void setReadListener(ReadListener readListener) {
-            }
-
-            @Override
-            public int read() throws IOException {
-                return bis.read();
-            }
-        };
-    }
-
     /**
      * 是否是Json请求
      *
      * @param request
      */
     public boolean isJsonRequest() {
-        String header = super.getHeader(HttpHeaders.CONTENT_TYPE);
-        return StringUtils.startsWithIgnoreCase(header, MediaType.APPLICATION_JSON_VALUE);
+        return RepeatedlyRequestWrapper.isJsonRequest(this);
     }
 }
@@ -0,0 +1,102 @@
+package com.ec.common.utils;
+
+import com.alibaba.fastjson.JSON;
+
+import java.io.Writer;
+
+/**
+ * 限制长度的JSON输出
+ * <p>
+ * 序列化结果直接写入定长缓冲区，达到上限后立即中断序列化，
+ * 避免为了截取前N个字符而完整序列化大对象。
+ * </p>
+ *
+ * @author ec
+ */
+public class BoundedJsonWriter extends Writer {
+    private final char[] buf;
+
+    private int count;
+
+    public BoundedJsonWriter(int limit) {
+        this.buf = new char[limit];
+    }
+
+    /**
+     * 对象序列化为JSON，超出长度的部分被截断
+     *
+     * @param value 对象
+     * @param limit 最大长度
+     * @return JSON字符串
+     */
+    public static String toJSONString(Object value, int limit) {
+        return new BoundedJsonWriter(limit).appendJson(value).toString();
+    }
+
+    /**
+     * 追加对象的JSON，缓冲区已满时忽略；序列化异常时保留已写入的部分
+     *
+     * @param value 对象
+     * @return this
+     */
+    public BoundedJsonWriter appendJson(Object value) {
+        if (!isFull()) {
+            try {
+                JSON.writeJSONString(this, value);
+            } catch (Exception ignored) {
+                // 达到长度上限或对象无法序列化
+            }
+        }
+        return this;
+    }
+
+    /**
+     * 追加字符，缓冲区已满时忽略
+     */
+    public BoundedJsonWriter appendChar(char c) {
+        if (!isFull()) {
+            buf[count++] = c;
+        }
+        return this;
+    }
+
+    public boolean isFull() {
+        return count >= buf.length;
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) {
+        int n = Math.min(len, buf.length - count);
+        System.arraycopy(cbuf, off, buf, count, n);
+        count += n;
+        if (n < len) {
+            throw LimitReachedException.INSTANCE;
+        }
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public String toString() {
+        return new String(buf, 0, count);
+    }
+
+    /**
+     * 达到长度上限，用于中断序列化（不收集堆栈）
+     */
+    private static final class LimitReachedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private static final LimitReachedException INSTANCE = new LimitReachedException();
+
+        private LimitReachedException() {
+            super("json length limit reached", null, false, false);
+        }
+    }
+}
@@ -5,8 +5,12 @@ import com.ec.common.core.domain.entity.SysDictData;
 import com.ec.common.core.redis.RedisCache;
 import com.ec.common.utils.spring.SpringUtils;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 字典工具类
@@ -19,6 +23,16 @@ public class DictUtils {
      */
     public static final String SEPARATOR = ",";
 
+    /**
+     * 本地字典索引刷新间隔（毫秒），用于感知其他节点对字典缓存的修改
+     */
+    private static final long INDEX_REFRESH_MILLIS = 60 * 1000L;
+
+    /**
+     * 本地字典索引 字典类型 -> 索引
+     */
+    private static final Map<String, DictIndex> DICT_INDEX = new ConcurrentHashMap<>();
+
     /**
      * 设置字典缓存
      *
@@ -27,6 +41,7 @@ public class DictUtils {
      */
     public static void setDictCache(String key, List<SysDictData> dictDatas) {
         SpringUtils.getBean(RedisCache.class).setCacheObject(getCacheKey(key), dictDatas);
+        DICT_INDEX.put(key, new DictIndex(dictDatas));
     }
 
     /**
@@ -75,26 +90,11 @@ public class DictUtils {
      * @return 字典标签
      */
     public static String getDictLabel(String dictType, String dictValue, String separator) {
-        StringBuilder propertyString = new StringBuilder();
-        List<SysDictData> datas = getDictCache(dictType);
-
-        if (StringUtils.containsAny(separator, dictValue) && StringUtils.isNotEmpty(datas)) {
-            for (SysDictData dict : datas) {
-                for (String value : dictValue.split(separator)) {
-                    if (value.equals(dict.getDictValue())) {
-                        propertyString.append(dict.getDictLabel() + separator);
-                        break;
-                    }
-                }
-            }
-        } else {
-            for (SysDictData dict : datas) {
-                if (dictValue.equals(dict.getDictValue())) {
-                    return dict.getDictLabel();
-                }
-            }
+        DictIndex index = getDictIndex(dictType);
+        if (StringUtils.containsAny(separator, dictValue) && !index.isEmpty()) {
+            return index.translate(dictValue, separator, index.valueOrdinals, index.labels);
         }
-        return StringUtils.stripEnd(propertyString.toString(), separator);
+        return StringUtils.nvl(index.lookup(dictValue, index.valueOrdinals, index.labels), "");
     }
 
     /**
@@ -106,26 +106,11 @@ public class DictUtils {
      * @return 字典值
      */
     public static String getDictValue(String dictType, String dictLabel, String separator) {
-        StringBuilder propertyString = new StringBuilder();
-        List<SysDictData> datas = getDictCache(dictType);
-
-        if (StringUtils.containsAny(separator, dictLabel) && StringUtils.isNotEmpty(datas)) {
-            for (SysDictData dict : datas) {
-                for (String label : dictLabel.split(separator)) {
-                    if (label.equals(dict.getDictLabel())) {
-                        propertyString.append(dict.getDictValue() + separator);
-                        break;
-                    }
-                }
-            }
-        } else {
-            for (SysDictData dict : datas) {
-                if (dictLabel.equals(dict.getDictLabel())) {
-                    return dict.getDictValue();
-                }
-            }
+        DictIndex index = getDictIndex(dictType);
+        if (StringUtils.containsAny(separator, dictLabel) && !index.isEmpty()) {
+            return index.translate(dictLabel, separator, index.labelOrdinals, index.values);
         }
-        return StringUtils.stripEnd(propertyString.toString(), separator);
+        return StringUtils.nvl(index.lookup(dictLabel, index.labelOrdinals, index.values), "");
     }
 
     /**
@@ -135,6 +120,7 @@ public class DictUtils {
      */
     public static void removeDictCache(String key) {
         SpringUtils.getBean(RedisCache.class).deleteObject(getCacheKey(key));
+        DICT_INDEX.remove(key);
     }
 
     /**
@@ -143,6 +129,7 @@ public class DictUtils {
     public static void clearDictCache() {
         Collection<String> keys = SpringUtils.getBean(RedisCache.class).keys(Constants.SYS_DICT_KEY + "*");
         SpringUtils.getBean(RedisCache.class).deleteObject(keys);
+        DICT_INDEX.clear();
     }
 
     /**
@@ -154,4 +141,101 @@ public class DictUtils {
     public static String getCacheKey(String configKey) {
         return Constants.SYS_DICT_KEY + configKey;
     }
+
+    /**
+     * 获取字典索引，本地不存在或已过期时从缓存重建
+     *
+     * @param dictType 字典类型
+     * @return 字典索引
+     */
+    private static DictIndex getDictIndex(String dictType) {
+        DictIndex index = DICT_INDEX.get(dictType);
+        if (index == null || index.isExpired()) {
+            index = new DictIndex(getDictCache(dictType));
+            DICT_INDEX.put(dictType, index);
+        }
+        return index;
+    }
+
+    /**
+     * 字典索引（不可变），按字典数据顺序记录键值与标签，并建立 键值->序号、标签->序号 的映射
+     */
+    private static final class DictIndex {
+        private final String[] values;
+
+        private final String[] labels;
+
+        private final Map<String, Integer> valueOrdinals;
+
+        private final Map<String, Integer> labelOrdinals;
+
+        private final long loadTime = System.currentTimeMillis();
+
+        DictIndex(List<SysDictData> dictDatas) {
+            int size = dictDatas == null ? 0 : dictDatas.size();
+            values = new String[size];
+            labels = new String[size];
+            valueOrdinals = new HashMap<>(Math.max(16, size * 4 / 3 + 1));
+            labelOrdinals = new HashMap<>(Math.max(16, size * 4 / 3 + 1));
+            for (int i = 0; i < size; i++) {
+                SysDictData dict = dictDatas.get(i);
+                values[i] = dict.getDictValue();
+                labels[i] = dict.getDictLabel();
+                valueOrdinals.putIfAbsent(values[i], i);
+                labelOrdinals.putIfAbsent(labels[i], i);
+            }
+        }
+
+        boolean isEmpty() {
+            return values.length == 0;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() - loadTime > INDEX_REFRESH_MILLIS;
+        }
+
+        String lookup(String key, Map<String, Integer> ordinals, String[] targets) {
+            Integer ordinal = ordinals.get(key);
+            return ordinal == null ? null : targets[ordinal];
+        }
+
+        /**
+         * 多值转换，结果按字典数据顺序输出并去重
+         */
+        String translate(String source, String separator, Map<String, Integer> ordinals, String[] targets) {
+            int[] hits = new int[8];
+            int count = 0;
+            int start = 0;
+            int length = source.length();
+            while (start <= length) {
+                int end = source.indexOf(separator, start);
+                if (end < 0) {
+                    end = length;
+                }
+                Integer ordinal = ordinals.get(source.substring(start, end));
+                if (ordinal != null) {
+                    if (count == hits.length) {
+                        hits = Arrays.copyOf(hits, count << 1);
+                    }
+                    hits[count++] = ordinal;
+                }
+                start = end + separator.length();
+            }
+            if (count == 0) {
+                return "";
+            }
+            Arrays.sort(hits, 0, count);
+            StringBuilder builder = new StringBuilder(count * 8);
+            for (int i = 0; i < count; i++) {
+                if (i > 0 && hits[i] == hits[i - 1]) {
+                    continue;
+                }
+                if (builder.length() > 0) {
+                    builder.append(separator);
+                }
+                builder.append(targets[hits[i]]);
+            }
+            return builder.toString();
+        }
+    }
 }
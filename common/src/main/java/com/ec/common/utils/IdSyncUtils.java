@@ -0,0 +1,58 @@
+package com.ec.common.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * 关联ID差异同步
+ * <p>
+ * 用于用户角色、用户岗位、角色菜单等关联表：对比现有ID与目标ID，只删除取消的、只新增增加的，
+ * 代替先全部删除再全部插入。
+ * </p>
+ *
+ * @author ec
+ */
+public class IdSyncUtils {
+
+    /**
+     * 这个类不能实例化
+     */
+    private IdSyncUtils() {
+    }
+
+    /**
+     * 按差异同步关联ID
+     *
+     * @param currentIds 现有ID
+     * @param targetIds  目标ID，为null时保持不变，为空数组时删除全部
+     * @param remover    删除取消的ID，没有时不调用
+     * @param adder      新增增加的ID，没有时不调用
+     * @return 是否有变化
+     */
+    public static boolean sync(Collection<Long> currentIds, Long[] targetIds, Consumer<List<Long>> remover,
+                               Consumer<List<Long>> adder) {
+        if (targetIds == null) {
+            return false;
+        }
+        Set<Long> added = new LinkedHashSet<>();
+        Collections.addAll(added, targetIds);
+        List<Long> removed = new ArrayList<>();
+        for (Long id : currentIds) {
+            if (!added.remove(id)) {
+                removed.add(id);
+            }
+        }
+        if (!removed.isEmpty()) {
+            remover.accept(removed);
+        }
+        if (!added.isEmpty()) {
+            adder.accept(new ArrayList<>(added));
+        }
+        return !removed.isEmpty() || !added.isEmpty();
+    }
+}
@@ -3,8 +3,11 @@ package com.ec.common.utils;
 import com.ec.common.core.page.PageDomain;
 import com.ec.common.core.page.TableSupport;
 import com.ec.common.utils.sql.SqlUtil;
+import com.github.pagehelper.Page;
 import com.github.pagehelper.PageHelper;
 
+import java.util.function.Supplier;
+
 /**
  * 分页工具类
  *
@@ -24,4 +27,19 @@ public class PageUtils extends PageHelper {
             PageHelper.startPage(pageNum, pageSize, orderBy).setReasonable(reasonable);
         }
     }
+
+    /**
+     * 执行不参与分页的查询（如分页查询前的辅助查询），执行后恢复当前线程的分页参数
+     */
+    public static <T> T withoutPage(Supplier<T> supplier) {
+        Page<Object> page = getLocalPage();
+        clearPage();
+        try {
+            return supplier.get();
+        } finally {
+            if (page != null) {
+                setLocalPage(page);
+            }
+        }
+    }
 }
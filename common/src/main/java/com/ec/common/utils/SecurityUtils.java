@@ -57,6 +57,17 @@ public class SecurityUtils {
         }
     }
 
+    /**
+     * 获取当前登录用户的租户，未登录时返回空字符串（默认数据源）
+     **/
+    public static String getTenant() {
+        Authentication authentication = getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof LoginUser) {
+            return StringUtils.nvl(((LoginUser) authentication.getPrincipal()).getTenant(), "");
+        }
+        return "";
+    }
+
     /**
      * 获取Authentication
      */
@@ -0,0 +1,100 @@
+package com.ec.common.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 树结构构建
+ * <p>
+ * 按父节点ID分组一次，再从根节点向下挂载子节点，时间复杂度O(n)。
+ * 子节点保持在原列表中的顺序；没有子节点的节点不调用children设置（保留默认的空列表）。
+ * </p>
+ *
+ * @author ec
+ */
+public class TreeUtils {
+
+    /**
+     * 这个类不能实例化
+     */
+    private TreeUtils() {
+    }
+
+    /**
+     * 构建树，父节点不在列表中的节点作为根节点；没有根节点时（数据成环）返回原列表
+     *
+     * @param nodes          节点列表
+     * @param idGetter       节点ID
+     * @param parentIdGetter 父节点ID
+     * @param childrenSetter 设置子节点
+     * @return 根节点列表
+     */
+    public static <T> List<T> buildTree(List<T> nodes, Function<T, Long> idGetter, Function<T, Long> parentIdGetter,
+                                        BiConsumer<T, List<T>> childrenSetter) {
+        Set<Long> ids = new HashSet<>(Math.max(16, nodes.size() * 4 / 3 + 1));
+        for (T node : nodes) {
+            ids.add(idGetter.apply(node));
+        }
+        List<T> roots = buildTree(nodes, node -> !ids.contains(parentIdGetter.apply(node)), idGetter, parentIdGetter,
+                childrenSetter);
+        return roots.isEmpty() ? nodes : roots;
+    }
+
+    /**
+     * 构建指定父节点下的树
+     *
+     * @param nodes          节点列表
+     * @param parentId       根节点的父节点ID
+     * @param idGetter       节点ID
+     * @param parentIdGetter 父节点ID
+     * @param childrenSetter 设置子节点
+     * @return 根节点列表
+     */
+    public static <T> List<T> buildTree(List<T> nodes, Long parentId, Function<T, Long> idGetter,
+                                        Function<T, Long> parentIdGetter, BiConsumer<T, List<T>> childrenSetter) {
+        return buildTree(nodes, node -> Objects.equals(parentId, parentIdGetter.apply(node)), idGetter, parentIdGetter,
+                childrenSetter);
+    }
+
+    private static <T> List<T> buildTree(List<T> nodes, Predicate<T> isRoot, Function<T, Long> idGetter,
+                                         Function<T, Long> parentIdGetter, BiConsumer<T, List<T>> childrenSetter) {
+        if (nodes.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, List<T>> childrenMap = new HashMap<>(Math.max(16, nodes.size() * 4 / 3 + 1));
+        List<T> roots = new ArrayList<>();
+        for (T node : nodes) {
+            Long parentId = parentIdGetter.apply(node);
+            if (parentId != null) {
+                childrenMap.computeIfAbsent(parentId, k -> new ArrayList<>()).add(node);
+            }
+            if (isRoot.test(node)) {
+                roots.add(node);
+            }
+        }
+        // 只从根节点向下挂载，成环的节点不会被挂载
+        Deque<T> stack = new ArrayDeque<>(roots);
+        while (!stack.isEmpty()) {
+            T node = stack.pop();
+            List<T> children = childrenMap.get(idGetter.apply(node));
+            if (children != null) {
+                childrenSetter.accept(node, children);
+                for (T child : children) {
+                    stack.push(child);
+                }
+            }
+        }
+        return roots;
+    }
+}
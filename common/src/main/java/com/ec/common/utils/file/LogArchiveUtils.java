@@ -0,0 +1,259 @@
+package com.ec.common.utils.file;
+
+import com.alibaba.fastjson.JSON;
+import com.ec.common.config.ErpCrmConfig;
+import com.ec.common.constant.Constants;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 日志归档文件工具类
+ * <p>
+ * 归档文件按 租户/表名/月份 存放于 {@link ErpCrmConfig#getArchivePath()} 下，
+ * 每行一条JSON记录并以gzip压缩，文件名为 yyyy-MM-时间戳-记录数-最大主键.jsonl.gz，同一月份可有多个文件。
+ * 文件名中的记录数作为索引，查询时可直接得到总数并跳过不需要的行；最大主键用于再次归档时跳过已归档的记录。
+ * </p>
+ *
+ * @author ec
+ */
+public class LogArchiveUtils {
+    /**
+     * 归档文件后缀
+     */
+    public static final String SUFFIX = ".jsonl.gz";
+
+    /**
+     * 月份长度 yyyy-MM
+     */
+    private static final int MONTH_LENGTH = 7;
+
+    /**
+     * 获取归档目录
+     *
+     * @param tenant 租户
+     * @param table  表名
+     * @return 归档目录
+     */
+    public static File getArchiveDir(String tenant, String table) {
+        if (!FileUtils.isValidFilename(tenant) || !FileUtils.isValidFilename(table) || tenant.contains("..")) {
+            throw new IllegalArgumentException("非法的归档目录: " + tenant + "/" + table);
+        }
+        return new File(ErpCrmConfig.getArchivePath() + File.separator + tenant + File.separator + table);
+    }
+
+    /**
+     * 获取已归档的月份，按时间倒序
+     *
+     * @param tenant 租户
+     * @param table  表名
+     * @return 月份列表 yyyy-MM
+     */
+    public static List<String> listMonths(String tenant, String table) {
+        String[] names = getArchiveDir(tenant, table).list((dir, name) -> name.endsWith(SUFFIX));
+        if (names == null) {
+            return Collections.emptyList();
+        }
+        TreeSet<String> months = new TreeSet<>(Collections.reverseOrder());
+        for (String name : names) {
+            months.add(name.substring(0, MONTH_LENGTH));
+        }
+        return new ArrayList<>(months);
+    }
+
+    /**
+     * 某月份的归档记录数
+     *
+     * @param tenant 租户
+     * @param table  表名
+     * @param month  月份 yyyy-MM
+     * @return 记录数
+     */
+    public static long countMonth(String tenant, String table, String month) throws IOException {
+        long count = 0;
+        for (File file : listMonthFiles(tenant, table, month)) {
+            count += countFile(file);
+        }
+        return count;
+    }
+
+    /**
+     * 某月份已归档记录的最大主键
+     *
+     * @param tenant 租户
+     * @param table  表名
+     * @param month  月份 yyyy-MM
+     * @return 最大主键，没有归档记录时为0
+     */
+    public static long maxId(String tenant, String table, String month) throws IOException {
+        long maxId = 0;
+        for (File file : listMonthFiles(tenant, table, month)) {
+            maxId = Math.max(maxId, nameNumber(file, 4));
+        }
+        return maxId;
+    }
+
+    /**
+     * 按归档顺序（时间正序）逐条读取某月份的归档记录，不在内存中保留已读记录
+     *
+     * @param tenant  租户
+     * @param table   表名
+     * @param month   月份 yyyy-MM
+     * @param clazz   记录类型
+     * @param skip    跳过的记录数，跳过的行不解析
+     * @param handler 记录处理，返回false时停止读取
+     */
+    public static <T> void readMonth(String tenant, String table, String month, Class<T> clazz, long skip,
+                                     Predicate<T> handler) throws IOException {
+        for (File file : listMonthFiles(tenant, table, month)) {
+            if (skip > 0) {
+                long count = countFile(file);
+                if (skip >= count) {
+                    skip -= count;
+                    continue;
+                }
+            }
+            try (BufferedReader reader = openReader(file)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isEmpty()) {
+                        continue;
+                    }
+                    if (skip > 0) {
+                        skip--;
+                        continue;
+                    }
+                    if (!handler.test(JSON.parseObject(line, clazz))) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 某月份的归档文件，按归档先后排序
+     */
+    private static File[] listMonthFiles(String tenant, String table, String month) {
+        File[] files = getArchiveDir(tenant, table).listFiles((d, name) -> name.startsWith(month) && name.endsWith(SUFFIX));
+        if (files == null) {
+            return new File[0];
+        }
+        Arrays.sort(files);
+        return files;
+    }
+
+    /**
+     * 归档文件名去掉后缀后按 - 分隔为：年、月、时间戳、记录数、最大主键，取其中第index部分的数值
+     */
+    private static long nameNumber(File file, int index) throws IOException {
+        String name = file.getName();
+        String[] parts = name.substring(0, name.length() - SUFFIX.length()).split("-");
+        if (parts.length != 5) {
+            throw new IOException("非法的归档文件名: " + name);
+        }
+        try {
+            return Long.parseLong(parts[index]);
+        } catch (NumberFormatException e) {
+            throw new IOException("非法的归档文件名: " + name, e);
+        }
+    }
+
+    /**
+     * 归档文件的记录数
+     */
+    private static long countFile(File file) throws IOException {
+        return nameNumber(file, 3);
+    }
+
+    private static BufferedReader openReader(File file) throws IOException {
+        return new BufferedReader(new InputStreamReader(new GZIPInputStream(new FileInputStream(file)), Constants.UTF8));
+    }
+
+    /**
+     * 创建某月份的归档写入器，提交前写入临时文件
+     *
+     * @param tenant 租户
+     * @param table  表名
+     * @param month  月份 yyyy-MM
+     * @return 写入器
+     */
+    public static ArchiveWriter newWriter(String tenant, String table, String month) throws IOException {
+        File dir = getArchiveDir(tenant, table);
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("无法创建归档目录: " + dir);
+        }
+        return new ArchiveWriter(dir, month + "-" + System.currentTimeMillis());
+    }
+
+    /**
+     * 归档写入器
+     */
+    public static class ArchiveWriter implements Closeable {
+        private final File dir;
+
+        private final String prefix;
+
+        private final File temp;
+
+        private final BufferedWriter writer;
+
+        private long count;
+
+        private boolean committed;
+
+        private ArchiveWriter(File dir, String prefix) throws IOException {
+            this.dir = dir;
+            this.prefix = prefix;
+            this.temp = new File(dir, prefix + SUFFIX + ".tmp");
+            this.writer = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(new FileOutputStream(temp), 64 * 1024), Constants.UTF8));
+        }
+
+        /**
+         * 写入一条记录
+         */
+        public void write(Object row) throws IOException {
+            writer.write(JSON.toJSONString(row));
+            writer.newLine();
+            count++;
+        }
+
+        /**
+         * 提交归档，完成后文件才可被查询
+         *
+         * @param maxId 已写入记录的最大主键
+         */
+        public void commit(long maxId) throws IOException {
+            writer.close();
+            File target = new File(dir, prefix + "-" + count + "-" + maxId + SUFFIX);
+            if (!temp.renameTo(target)) {
+                throw new IOException("归档文件提交失败: " + target);
+            }
+            committed = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                writer.close();
+                temp.delete();
+            }
+        }
+    }
+}
@@ -52,7 +52,7 @@ public class EscapeUtil {
      * @return 清除标签后的文本
      */
     public static String clean(String content) {
-        return new HTMLFilter().filter(content);
+        return HtmlSanitizer.sanitize(content);
     }
 
     /**
@@ -0,0 +1,528 @@
+package com.ec.common.utils.html;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * HTML过滤器（单遍扫描实现）
+ * <p>
+ * 与 {@link HTMLFilter} 默认配置的白名单语义一致：只保留 a(href,target)、img(src,width,height,alt)、
+ * b、strong、i、em 标签，删除注释和其他标签，转义不成对的尖括号，补全未关闭的标签，删除空标签。
+ * 按字符顺序扫描一遍完成括号配对和标签处理，不使用正则，耗时与输入长度成线性关系；
+ * 只有输出了标签时才需要额外扫描删除空标签。
+ * </p>
+ *
+ * @author ec
+ */
+public final class HtmlSanitizer {
+    /**
+     * 允许的标签及其属性
+     */
+    private static final Map<String, List<String>> ALLOWED;
+
+    /**
+     * 必须自关闭的标签
+     */
+    private static final String SELF_CLOSING_TAG = "img";
+
+    /**
+     * 内容为空时删除的标签，按删除顺序排列
+     */
+    private static final String[] REMOVE_BLANKS = {"a", "b", "strong", "i", "em"};
+
+    /**
+     * 需要检查协议的属性
+     */
+    private static final String[] PROTOCOL_ATTRIBUTES = {"src", "href"};
+
+    private static final String[] ALLOWED_PROTOCOLS = {"http", "mailto", "https"};
+
+    private static final String[] ALLOWED_ENTITIES = {"amp", "gt", "lt", "quot"};
+
+    static {
+        Map<String, List<String>> allowed = new HashMap<>();
+        allowed.put("a", Arrays.asList("href", "target"));
+        allowed.put("img", Arrays.asList("src", "width", "height", "alt"));
+        allowed.put("b", Collections.emptyList());
+        allowed.put("strong", Collections.emptyList());
+        allowed.put("i", Collections.emptyList());
+        allowed.put("em", Collections.emptyList());
+        ALLOWED = Collections.unmodifiableMap(allowed);
+    }
+
+    private final String input;
+
+    private final StringBuilder out;
+
+    /**
+     * 各标签未关闭的数量
+     */
+    private Map<String, Integer> tagCounts;
+
+    /**
+     * 是否输出过标签
+     */
+    private boolean tagEmitted;
+
+    private HtmlSanitizer(String input) {
+        this.input = input;
+        this.out = new StringBuilder(input.length() + 16);
+    }
+
+    /**
+     * 过滤掉无效或不允许的html
+     *
+     * @param input 用户提交的文本
+     * @return 过滤后的文本
+     */
+    public static String sanitize(String input) {
+        if (input == null || (input.indexOf('<') < 0 && input.indexOf('>') < 0)) {
+            return input;
+        }
+        return new HtmlSanitizer(input).process();
+    }
+
+    private String process() {
+        String s = input;
+        int n = s.length();
+        // 只有第一个注释整体删除，其余注释按普通尖括号处理
+        int commentStart = s.indexOf("<!--");
+        int commentEnd = -1;
+        if (commentStart >= 0) {
+            int end = s.indexOf("-->", commentStart + 4);
+            if (end >= 0) {
+                commentEnd = end + 3;
+            } else {
+                commentStart = -1;
+            }
+        }
+        int i = 0;
+        int textStart = 0;
+        while (i < n) {
+            char c = s.charAt(i);
+            if (c != '<' && c != '>') {
+                i++;
+                continue;
+            }
+            out.append(s, textStart, i);
+            if (i == commentStart) {
+                i = commentEnd;
+            } else if (c == '>') {
+                // 前面没有与之配对的'<'
+                out.append("&gt;");
+                i++;
+            } else {
+                int next = nextBracket(s, i + 1, n);
+                if (next >= 0 && s.charAt(next) == '>' && next != commentStart) {
+                    processTag(i + 1, next);
+                    i = next + 1;
+                } else {
+                    // 后面没有与之配对的'>'
+                    out.append("&lt;");
+                    int end = next < 0 ? n : next;
+                    out.append(s, i + 1, end);
+                    i = end;
+                }
+            }
+            textStart = i;
+        }
+        out.append(s, textStart, n);
+        if (tagCounts != null) {
+            for (Map.Entry<String, Integer> entry : tagCounts.entrySet()) {
+                for (int ii = 0; ii < entry.getValue(); ii++) {
+                    out.append("</").append(entry.getKey()).append('>');
+                }
+            }
+        }
+        String result = out.toString();
+        if (tagEmitted) {
+            for (String tag : REMOVE_BLANKS) {
+                result = removeBlankPairs(result, tag);
+                result = removeBlankSelfClosing(result, tag);
+            }
+        }
+        return result;
+    }
+
+    private static int nextBracket(String s, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c == '<' || c == '>') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 处理尖括号之间的内容 [from, to)，输出允许的标签
+     */
+    private void processTag(int from, int to) {
+        String s = input;
+        if (from < to && s.charAt(from) == '/') {
+            int nameEnd = alnumEnd(s, from + 1, to);
+            if (nameEnd > from + 1) {
+                String name = s.substring(from + 1, nameEnd).toLowerCase(Locale.ROOT);
+                if (ALLOWED.containsKey(name) && !SELF_CLOSING_TAG.equals(name)
+                        && tagCounts != null && tagCounts.containsKey(name)) {
+                    tagCounts.put(name, tagCounts.get(name) - 1);
+                    out.append("</").append(name).append('>');
+                    tagEmitted = true;
+                }
+            }
+            return;
+        }
+        int nameEnd = alnumEnd(s, from, to);
+        if (nameEnd == from) {
+            return;
+        }
+        String name = s.substring(from, nameEnd).toLowerCase(Locale.ROOT);
+        List<String> allowedAttributes = ALLOWED.get(name);
+        if (allowedAttributes == null) {
+            return;
+        }
+        // 与HTMLFilter中的 "$" 一致：标签末尾的一个换行不属于标签内容，其前面的'/'仍表示自关闭
+        int end = to;
+        if (end > nameEnd && isLineTerminator(s.charAt(end - 1))) {
+            end--;
+            if (s.charAt(end) == '\n' && end > nameEnd && s.charAt(end - 1) == '\r') {
+                end--;
+            }
+        }
+        int bodyEnd = end > nameEnd && s.charAt(end - 1) == '/' ? end - 1 : end;
+        out.append('<').append(name);
+        if (nameEnd < bodyEnd && !allowedAttributes.isEmpty()) {
+            appendAttributes(allowedAttributes, nameEnd, bodyEnd);
+        }
+        if (SELF_CLOSING_TAG.equals(name)) {
+            out.append(" />");
+        } else {
+            if (tagCounts == null) {
+                tagCounts = new HashMap<>();
+            }
+            Integer count = tagCounts.get(name);
+            tagCounts.put(name, count == null ? 1 : count + 1);
+            out.append('>');
+        }
+        tagEmitted = true;
+    }
+
+    /**
+     * 解析标签属性：先取所有带引号的属性，再取所有不带引号的属性，只输出允许的属性
+     */
+    private void appendAttributes(List<String> allowedAttributes, int from, int to) {
+        String s = input;
+        List<String> names = new ArrayList<>(4);
+        List<String> values = new ArrayList<>(4);
+        // name="value" 或 name='value'
+        boolean noDoubleQuote = false;
+        boolean noSingleQuote = false;
+        int p = from;
+        while (p < to) {
+            if (!isAlnum(s.charAt(p))) {
+                p++;
+                continue;
+            }
+            int j = alnumEnd(s, p, to);
+            if (j + 1 < to && s.charAt(j) == '=' && (s.charAt(j + 1) == '"' || s.charAt(j + 1) == '\'')) {
+                char quote = s.charAt(j + 1);
+                int close = -1;
+                if (!(quote == '"' ? noDoubleQuote : noSingleQuote)) {
+                    close = s.indexOf(quote, j + 2);
+                    if (close >= to) {
+                        close = -1;
+                    }
+                }
+                if (close >= 0) {
+                    names.add(s.substring(p, j));
+                    values.add(s.substring(j + 2, close));
+                    p = close + 1;
+                    continue;
+                }
+                if (quote == '"') {
+                    noDoubleQuote = true;
+                } else {
+                    noSingleQuote = true;
+                }
+            }
+            p = j;
+        }
+        // name=value
+        p = from;
+        while (p < to) {
+            if (!isAlnum(s.charAt(p))) {
+                p++;
+                continue;
+            }
+            int j = alnumEnd(s, p, to);
+            if (j + 1 < to && s.charAt(j) == '=' && !isUnquotedEnd(s.charAt(j + 1))) {
+                int k = j + 1;
+                while (k < to && !isUnquotedEnd(s.charAt(k))) {
+                    k++;
+                }
+                names.add(s.substring(p, j));
+                values.add(s.substring(j + 1, k));
+                p = k;
+                continue;
+            }
+            p = j;
+        }
+        for (int ii = 0; ii < names.size(); ii++) {
+            String paramName = names.get(ii).toLowerCase(Locale.ROOT);
+            if (allowedAttributes.contains(paramName)) {
+                String paramValue = values.get(ii);
+                if (inArray(paramName, PROTOCOL_ATTRIBUTES)) {
+                    paramValue = processParamProtocol(paramValue);
+                }
+                out.append(' ').append(paramName).append("=\\\"").append(paramValue).append('"');
+            }
+        }
+    }
+
+    /**
+     * 不允许的协议改为页内锚点
+     */
+    private static String processParamProtocol(String s) {
+        s = decodeEntities(s);
+        int colon = s.indexOf(':');
+        if (colon > 0) {
+            String protocol = s.substring(0, colon);
+            if (!inArray(protocol, ALLOWED_PROTOCOLS)) {
+                s = "#" + s.substring(colon + 1);
+                if (s.startsWith("#//")) {
+                    s = "#" + s.substring(3);
+                }
+            }
+        }
+        return s;
+    }
+
+    /**
+     * 依次解码 &amp;#十进制; &amp;#x十六进制; %十六进制 ，再校验实体
+     */
+    private static String decodeEntities(String s) {
+        s = decodeNumericEntities(s, false);
+        s = decodeNumericEntities(s, true);
+        s = decodePercent(s);
+        return validateEntities(s);
+    }
+
+    private static String decodeNumericEntities(String s, boolean hex) {
+        int prefix = hex ? 3 : 2;
+        int i = s.indexOf(hex ? "&#x" : "&#");
+        if (i < 0) {
+            return s;
+        }
+        StringBuilder sb = new StringBuilder(s.length());
+        int last = 0;
+        while (i >= 0) {
+            int j = i + prefix;
+            while (j < s.length() && (hex ? isLowerHex(s.charAt(j)) : isDigit(s.charAt(j)))) {
+                j++;
+            }
+            if (j == i + prefix) {
+                i = s.indexOf(hex ? "&#x" : "&#", i + 1);
+                continue;
+            }
+            int end = j < s.length() && s.charAt(j) == ';' ? j + 1 : j;
+            try {
+                String number = s.substring(i + prefix, j);
+                int decimal = hex ? Integer.parseInt(number, 16) : Integer.decode(number);
+                sb.append(s, last, i).append((char) decimal);
+                last = end;
+            } catch (NumberFormatException e) {
+                // 超出范围的实体保持原样
+            }
+            i = s.indexOf(hex ? "&#x" : "&#", end);
+        }
+        return sb.append(s, last, s.length()).toString();
+    }
+
+    private static String decodePercent(String s) {
+        int i = s.indexOf('%');
+        if (i < 0) {
+            return s;
+        }
+        StringBuilder sb = new StringBuilder(s.length());
+        int last = 0;
+        while (i >= 0) {
+            if (i + 2 < s.length() && isLowerHex(s.charAt(i + 1)) && isLowerHex(s.charAt(i + 2))) {
+                int end = i + 3 < s.length() && s.charAt(i + 3) == ';' ? i + 4 : i + 3;
+                sb.append(s, last, i).append((char) Integer.parseInt(s.substring(i + 1, i + 3), 16));
+                last = end;
+                i = s.indexOf('%', end);
+            } else {
+                i = s.indexOf('%', i + 1);
+            }
+        }
+        return sb.append(s, last, s.length()).toString();
+    }
+
+    /**
+     * 只保留允许的实体，其余的 &amp; 转义
+     */
+    private static String validateEntities(String s) {
+        int i = s.indexOf('&');
+        if (i < 0) {
+            return s;
+        }
+        StringBuilder sb = new StringBuilder(s.length() + 16);
+        sb.append(s, 0, i);
+        while (i >= 0) {
+            int j = i + 1;
+            while (j < s.length() && s.charAt(j) != '&' && s.charAt(j) != ';') {
+                j++;
+            }
+            String preamble = s.substring(i + 1, j);
+            if (j < s.length() && s.charAt(j) == ';' && inArray(preamble, ALLOWED_ENTITIES)) {
+                sb.append('&');
+            } else {
+                sb.append("&amp;");
+            }
+            sb.append(preamble);
+            i = s.indexOf('&', j);
+            sb.append(s, j, i < 0 ? s.length() : i);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 删除内容为空的成对标签，如 &lt;b&gt;&lt;/b&gt;、&lt;a href=""&gt;&lt;/a&gt;
+     */
+    private static String removeBlankPairs(String s, String tag) {
+        String open = "<" + tag;
+        String close = "></" + tag + ">";
+        int i = s.indexOf(open);
+        if (i < 0) {
+            return s;
+        }
+        StringBuilder sb = null;
+        int last = 0;
+        int gt = -1;
+        while (i >= 0) {
+            int p = i + open.length();
+            int end = -1;
+            if (p < s.length() && isWhitespace(s.charAt(p))) {
+                if (gt < p) {
+                    gt = s.indexOf('>', p);
+                }
+                if (gt < 0) {
+                    break;
+                }
+                if (s.startsWith(close, gt)) {
+                    end = gt + close.length();
+                }
+            } else if (s.startsWith(close, p)) {
+                end = p + close.length();
+            }
+            if (end < 0) {
+                i = s.indexOf(open, i + 1);
+                continue;
+            }
+            if (sb == null) {
+                sb = new StringBuilder(s.length());
+            }
+            sb.append(s, last, i);
+            last = end;
+            i = s.indexOf(open, end);
+        }
+        return sb == null ? s : sb.append(s, last, s.length()).toString();
+    }
+
+    /**
+     * 删除自关闭的空标签，如 &lt;b/&gt;、&lt;a href="" /&gt;
+     */
+    private static String removeBlankSelfClosing(String s, String tag) {
+        String open = "<" + tag;
+        int i = s.indexOf(open);
+        if (i < 0) {
+            return s;
+        }
+        StringBuilder sb = null;
+        int last = 0;
+        int gt = -1;
+        while (i >= 0) {
+            int p = i + open.length();
+            int end = -1;
+            if (p < s.length() && isWhitespace(s.charAt(p))) {
+                if (gt < p) {
+                    gt = s.indexOf('>', p);
+                }
+                if (gt < 0) {
+                    break;
+                }
+                if (gt - 1 >= p + 1 && s.charAt(gt - 1) == '/') {
+                    end = gt + 1;
+                }
+            } else if (s.startsWith("/>", p)) {
+                end = p + 2;
+            }
+            if (end < 0) {
+                i = s.indexOf(open, i + 1);
+                continue;
+            }
+            if (sb == null) {
+                sb = new StringBuilder(s.length());
+            }
+            sb.append(s, last, i);
+            last = end;
+            i = s.indexOf(open, end);
+        }
+        return sb == null ? s : sb.append(s, last, s.length()).toString();
+    }
+
+    private static int alnumEnd(String s, int from, int to) {
+        int i = from;
+        while (i < to && isAlnum(s.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isAlnum(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isLowerHex(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f');
+    }
+
+    /**
+     * 正则 \s
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * 正则中 "$" 可匹配在其前面的行结束符
+     */
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    /**
+     * 不带引号的属性值的结束字符
+     */
+    private static boolean isUnquotedEnd(char c) {
+        return c == '"' || c == '\'' || isWhitespace(c);
+    }
+
+    private static boolean inArray(String s, String[] array) {
+        for (String item : array) {
+            if (item.equals(s)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,205 @@
+package com.ec.common.utils.html;
+
+import com.ec.common.filter.BodyBuffer.BodyTooLargeException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * JSON请求体XSS过滤
+ * <p>
+ * 按字节流逐个识别JSON词法单元，结构字符、数字、字面量和对象的key原样输出，
+ * 只对含有 '&lt;' 或 '&gt;' 的字符串值调用 {@link EscapeUtil#clean(String)}；
+ * 与原先对整个请求体过滤一样，作用于JSON转义状态下的原始文本（unicode转义的尖括号不视为尖括号）。
+ * 不完整或非法的JSON同样原样输出，由后续的JSON解析报错。
+ * 读取的原始字节数超过最大长度时抛出 {@link BodyTooLargeException}，字符串值的缓冲因此同样有界。
+ * </p>
+ *
+ * @author ec
+ */
+public class JsonXssSanitizer {
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    private static final byte OBJECT = 1;
+
+    private static final byte ARRAY = 2;
+
+    private final byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+
+    /**
+     * 当前字符串的原始内容（不含引号）
+     */
+    private byte[] string = new byte[256];
+
+    private int stringLength;
+
+    /**
+     * 对象/数组的嵌套栈
+     */
+    private byte[] stack = new byte[32];
+
+    private int depth;
+
+    /**
+     * 下一个字符串是否是对象的key
+     */
+    private boolean expectKey;
+
+    private boolean inString;
+
+    private boolean escaped;
+
+    /**
+     * 当前字符串是否含有尖括号
+     */
+    private boolean hasBracket;
+
+    private boolean stringIsKey;
+
+    /**
+     * 过滤JSON请求体
+     *
+     * @param in        JSON输入流
+     * @param out       过滤后的输出
+     * @param maxLength 输入的最大字节数，超过时抛出 {@link BodyTooLargeException}
+     * @return 输出的字节数
+     */
+    public static long sanitize(InputStream in, OutputStream out, int maxLength) throws IOException {
+        return new JsonXssSanitizer().process(in, out, maxLength);
+    }
+
+    private long process(InputStream in, OutputStream out, int maxLength) throws IOException {
+        long total = 0;
+        long read = 0;
+        int n;
+        while ((n = in.read(readBuffer)) != -1) {
+            read += n;
+            if (read > maxLength) {
+                throw new BodyTooLargeException(maxLength);
+            }
+            int start = 0;
+            for (int i = 0; i < n; i++) {
+                byte b = readBuffer[i];
+                if (inString) {
+                    if (escaped) {
+                        escaped = false;
+                    } else if (b == '\\') {
+                        escaped = true;
+                    } else if (b == '"') {
+                        inString = false;
+                        total += endString(out);
+                        start = i + 1;
+                        continue;
+                    } else if (b == '<' || b == '>') {
+                        hasBracket = true;
+                    }
+                    appendString(b);
+                    start = i + 1;
+                    continue;
+                }
+                switch (b) {
+                    case '"':
+                        out.write(readBuffer, start, i - start + 1);
+                        total += i - start + 1;
+                        start = i + 1;
+                        beginString();
+                        break;
+                    case '{':
+                        push(OBJECT);
+                        expectKey = true;
+                        break;
+                    case '[':
+                        push(ARRAY);
+                        expectKey = false;
+                        break;
+                    case '}':
+                    case ']':
+                        if (depth > 0) {
+                            depth--;
+                        }
+                        expectKey = false;
+                        break;
+                    case ':':
+                        expectKey = false;
+                        break;
+                    case ',':
+                        expectKey = depth > 0 && stack[depth - 1] == OBJECT;
+                        break;
+                    default:
+                        break;
+                }
+            }
+            if (start < n) {
+                out.write(readBuffer, start, n - start);
+                total += n - start;
+            }
+        }
+        if (inString) {
+            // 未结束的字符串原样输出
+            out.write(string, 0, stringLength);
+            total += stringLength;
+        }
+        return total;
+    }
+
+    private void beginString() {
+        inString = true;
+        escaped = false;
+        hasBracket = false;
+        stringLength = 0;
+        stringIsKey = expectKey && depth > 0 && stack[depth - 1] == OBJECT;
+    }
+
+    private void appendString(byte b) {
+        if (stringLength == string.length) {
+            string = Arrays.copyOf(string, string.length << 1);
+        }
+        string[stringLength++] = b;
+    }
+
+    /**
+     * 输出字符串内容和结束引号
+     */
+    private int endString(OutputStream out) throws IOException {
+        if (stringIsKey || !hasBracket) {
+            out.write(string, 0, stringLength);
+            out.write('"');
+            return stringLength + 1;
+        }
+        String cleaned = escapeBareQuotes(EscapeUtil.clean(new String(string, 0, stringLength, StandardCharsets.UTF_8)));
+        byte[] bytes = cleaned.getBytes(StandardCharsets.UTF_8);
+        out.write(bytes);
+        out.write('"');
+        return bytes.length + 1;
+    }
+
+    private void push(byte type) {
+        if (depth == stack.length) {
+            stack = Arrays.copyOf(stack, stack.length << 1);
+        }
+        stack[depth++] = type;
+    }
+
+    /**
+     * 过滤后的标签属性可能带有未转义的双引号，转义后保证输出仍是合法的JSON字符串
+     */
+    static String escapeBareQuotes(String s) {
+        if (s.indexOf('"') < 0) {
+            return s;
+        }
+        StringBuilder sb = new StringBuilder(s.length() + 8);
+        int backslashes = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' && (backslashes & 1) == 0) {
+                sb.append('\\');
+            }
+            backslashes = c == '\\' ? backslashes + 1 : 0;
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+}
@@ -1,46 +1,67 @@
 package com.ec.common.utils.ip;
 
-import com.alibaba.fastjson.JSONObject;
 import com.ec.common.config.ErpCrmConfig;
-import com.ec.common.constant.Constants;
 import com.ec.common.utils.StringUtils;
-import com.ec.common.utils.http.HttpUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Paths;
+
 /**
  * 获取地址类
  *
  * @author ec
  */
 public class AddressUtils {
-    // IP地址查询
-    public static final String IP_URL = "http://whois.pconline.com.cn/ipJson.jsp";
     // 未知地址
     public static final String UNKNOWN = "XX XX";
     private static final Logger log = LoggerFactory.getLogger(AddressUtils.class);
 
+    /**
+     * 离线IP地址库，首次使用时加载
+     */
+    private static volatile IpRegionSearcher searcher;
+
+    /**
+     * 地址库是否已尝试加载
+     */
+    private static volatile boolean loaded;
+
     public static String getRealAddressByIP(String ip) {
-        String address = UNKNOWN;
         // 内网不查询
         if (IpUtils.internalIp(ip)) {
             return "内网IP";
         }
         if (ErpCrmConfig.isAddressEnabled()) {
-            try {
-                String rspStr = HttpUtils.sendGet(IP_URL, "ip=" + ip + "&json=true", Constants.GBK);
-                if (StringUtils.isEmpty(rspStr)) {
-                    log.error("获取地理位置异常 {}", ip);
-                    return UNKNOWN;
+            IpRegionSearcher ipSearcher = getSearcher();
+            if (ipSearcher != null) {
+                String region = ipSearcher.search(ip);
+                if (region != null) {
+                    return region;
+                }
+            }
+        }
+        return UNKNOWN;
+    }
+
+    private static IpRegionSearcher getSearcher() {
+        if (!loaded) {
+            synchronized (AddressUtils.class) {
+                if (!loaded) {
+                    String path = ErpCrmConfig.getIpDbPath();
+                    if (StringUtils.isEmpty(path)) {
+                        log.warn("未配置IP地址库文件(ec.ipDbPath)，地理位置将显示为未知");
+                    } else {
+                        try {
+                            searcher = IpRegionSearcher.load(Paths.get(path));
+                        } catch (Exception e) {
+                            log.error("加载IP地址库失败 {}", path, e);
+                        }
+                    }
+                    loaded = true;
                 }
-                JSONObject obj = JSONObject.parseObject(rspStr);
-                String region = obj.getString("pro");
-                String city = obj.getString("city");
-                return String.format("%s %s", region, city);
-            } catch (Exception e) {
-                log.error("获取地理位置异常 {}", ip);
             }
         }
-        return address;
+        return searcher;
     }
 }
@@ -0,0 +1,250 @@
+package com.ec.common.utils.ip;
+
+import com.ec.common.constant.Constants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 离线IP地址库查询
+ * <p>
+ * 数据文件为只读内存映射，结构如下（整数均为大端）：
+ * <pre>
+ * 头部   : magic "ECIP"(4) | version(4) | 记录数(4) | 字符串区偏移(4)
+ * 记录区 : 按起始IP升序，每条 起始IP(4) | 结束IP(4) | 地区偏移(4)
+ * 字符串区: 每个地区 长度(2) | UTF-8字节
+ * </pre>
+ * 查询在记录区二分查找，结果放入LRU缓存。数据文件可由 {@link #convert(Path, Path)} 从CSV生成。
+ * </p>
+ *
+ * @author ec
+ */
+public class IpRegionSearcher {
+    private static final Logger log = LoggerFactory.getLogger(IpRegionSearcher.class);
+
+    private static final int MAGIC = 0x45434950;
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 16;
+
+    private static final int RECORD_SIZE = 12;
+
+    /**
+     * 查询结果缓存条数
+     */
+    private static final int CACHE_SIZE = 4096;
+
+    private final ByteBuffer buffer;
+
+    private final int recordCount;
+
+    private final int regionStart;
+
+    private final Map<String, String> cache = Collections.synchronizedMap(new LinkedHashMap<String, String>(CACHE_SIZE, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    });
+
+    private IpRegionSearcher(ByteBuffer buffer) {
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("IP地址库文件格式错误");
+        }
+        this.buffer = buffer;
+        this.recordCount = buffer.getInt(8);
+        this.regionStart = buffer.getInt(12);
+    }
+
+    /**
+     * 以内存映射方式加载IP地址库
+     *
+     * @param file 数据文件
+     * @return 查询器
+     */
+    public static IpRegionSearcher load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new IpRegionSearcher(buffer);
+        }
+    }
+
+    /**
+     * 查询IPv4地址所在地区
+     *
+     * @param ip IPv4地址
+     * @return 地区，格式为"省 市"；未收录或非IPv4地址返回null
+     */
+    public String search(String ip) {
+        String region = cache.get(ip);
+        if (region != null) {
+            return region;
+        }
+        long value = toLong(ip);
+        if (value < 0) {
+            return null;
+        }
+        int offset = find(value);
+        if (offset < 0) {
+            return null;
+        }
+        region = readRegion(offset);
+        cache.put(ip, region);
+        return region;
+    }
+
+    /**
+     * 二分查找包含该IP的记录
+     *
+     * @return 地区在字符串区的偏移，未找到返回-1
+     */
+    private int find(long ip) {
+        int low = 0;
+        int high = recordCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int pos = HEADER_SIZE + mid * RECORD_SIZE;
+            long start = buffer.getInt(pos) & 0xFFFFFFFFL;
+            if (ip < start) {
+                high = mid - 1;
+            } else if (ip > (buffer.getInt(pos + 4) & 0xFFFFFFFFL)) {
+                low = mid + 1;
+            } else {
+                return buffer.getInt(pos + 8);
+            }
+        }
+        return -1;
+    }
+
+    private String readRegion(int offset) {
+        int pos = regionStart + offset;
+        int length = buffer.getShort(pos) & 0xFFFF;
+        byte[] bytes = new byte[length];
+        ByteBuffer view = buffer.duplicate();
+        view.position(pos + 2);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 点分十进制IPv4地址转为无符号整数
+     *
+     * @return 非法地址返回-1
+     */
+    static long toLong(String ip) {
+        if (ip == null) {
+            return -1;
+        }
+        long result = 0;
+        int part = 0;
+        int digits = 0;
+        int dots = 0;
+        for (int i = 0, len = ip.length(); i < len; i++) {
+            char c = ip.charAt(i);
+            if (c >= '0' && c <= '9') {
+                part = part * 10 + (c - '0');
+                if (++digits > 3 || part > 255) {
+                    return -1;
+                }
+            } else if (c == '.' && digits > 0 && dots < 3) {
+                result = (result << 8) | part;
+                part = 0;
+                digits = 0;
+                dots++;
+            } else {
+                return -1;
+            }
+        }
+        if (dots != 3 || digits == 0) {
+            return -1;
+        }
+        return (result << 8) | part;
+    }
+
+    /**
+     * 将CSV格式的IP段数据转换为地址库文件
+     * <p>每行格式：起始IP,结束IP,省,市（字符集GBK或UTF-8由charset指定，IP段不得重叠）</p>
+     *
+     * @param csv     CSV文件
+     * @param target  生成的数据文件
+     * @param charset CSV字符集
+     */
+    public static void convert(Path csv, Path target, Charset charset) throws IOException {
+        List<long[]> records = new ArrayList<>();
+        Map<String, Integer> regionOffsets = new HashMap<>();
+        ByteArrayOutputStream regions = new ByteArrayOutputStream();
+        try (BufferedReader reader = Files.newBufferedReader(csv, charset)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] columns = line.split(",", -1);
+                if (columns.length < 4) {
+                    continue;
+                }
+                long start = toLong(columns[0].trim());
+                long end = toLong(columns[1].trim());
+                if (start < 0 || end < start) {
+                    continue;
+                }
+                String region = columns[2].trim() + " " + columns[3].trim();
+                Integer offset = regionOffsets.get(region);
+                if (offset == null) {
+                    offset = regions.size();
+                    byte[] bytes = region.getBytes(StandardCharsets.UTF_8);
+                    regions.write(bytes.length >>> 8);
+                    regions.write(bytes.length);
+                    regions.write(bytes, 0, bytes.length);
+                    regionOffsets.put(region, offset);
+                }
+                records.add(new long[]{start, end, offset});
+            }
+        }
+        records.sort((a, b) -> Long.compare(a[0], b[0]));
+        try (OutputStream os = Files.newOutputStream(target);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(records.size());
+            out.writeInt(HEADER_SIZE + records.size() * RECORD_SIZE);
+            for (long[] record : records) {
+                out.writeInt((int) record[0]);
+                out.writeInt((int) record[1]);
+                out.writeInt((int) record[2]);
+            }
+            regions.writeTo(out);
+        }
+        log.info("IP地址库生成完成，共{}条记录，{}个地区", records.size(), regionOffsets.size());
+    }
+
+    /**
+     * 将GBK编码的CSV格式IP段数据转换为地址库文件
+     *
+     * @param csv    CSV文件
+     * @param target 生成的数据文件
+     */
+    public static void convert(Path csv, Path target) throws IOException {
+        convert(csv, target, Charset.forName(Constants.GBK));
+    }
+}
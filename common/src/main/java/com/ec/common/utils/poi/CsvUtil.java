@@ -0,0 +1,381 @@
+package com.ec.common.utils.poi;
+
+import com.ec.common.annotation.Excel;
+import com.ec.common.annotation.Excel.ColumnType;
+import com.ec.common.annotation.Excel.Type;
+import com.ec.common.core.text.Convert;
+import com.ec.common.exception.UtilException;
+import com.ec.common.utils.DateUtils;
+import com.ec.common.utils.StringUtils;
+import com.ec.common.utils.file.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * CSV导入导出
+ * <p>
+ * 使用与 {@link ExcelUtil} 相同的 {@link Excel} 注解，列顺序、表头、翻译表达式、字典、数据处理器规则一致；
+ * 导出逐行直接写入缓冲流，不创建单元格和样式对象，不输出合计行；导入逐字符流式解析，支持引号内的逗号和换行。
+ * 导出文件为带BOM的UTF-8（Excel可直接打开），可选gzip压缩，导入时自动识别gzip。
+ * </p>
+ *
+ * @author ec
+ */
+public class CsvUtil<T> {
+    private static final Logger log = LoggerFactory.getLogger(CsvUtil.class);
+
+    private static final char BOM = '\uFEFF';
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 实体对象
+     */
+    private final Class<T> clazz;
+
+    public CsvUtil(Class<T> clazz) {
+        this.clazz = clazz;
+    }
+
+    /**
+     * 逐行导出数据到CSV，直接写入响应流
+     *
+     * @param response 返回数据
+     * @param fileName 下载文件名（不含扩展名）
+     * @param gzip     是否gzip压缩
+     * @param rows     数据来源，参数为每行数据的处理
+     */
+    public void exportCsv(HttpServletResponse response, String fileName, boolean gzip, Consumer<Consumer<T>> rows) {
+        try {
+            response.setContentType(gzip ? "application/gzip" : "text/csv");
+            response.setCharacterEncoding("utf-8");
+            FileUtils.setAttachmentResponseHeader(response, fileName + (gzip ? ".csv.gz" : ".csv"));
+            exportCsv(response.getOutputStream(), gzip, rows);
+        } catch (Exception e) {
+            log.error("导出CSV异常{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 逐行导出数据到CSV
+     *
+     * @param out  输出流，由调用方关闭
+     * @param gzip 是否gzip压缩
+     * @param rows 数据来源，参数为每行数据的处理
+     */
+    public void exportCsv(OutputStream out, boolean gzip, Consumer<Consumer<T>> rows) throws IOException {
+        GZIPOutputStream gzipOut = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : null;
+        Writer writer = new OutputStreamWriter(new BufferedOutputStream(gzip ? gzipOut : out, BUFFER_SIZE), StandardCharsets.UTF_8);
+        List<ExcelColumn> columns = getColumns(Type.EXPORT);
+        SimpleDateFormat[] dateFormats = new SimpleDateFormat[columns.size()];
+        writer.write(BOM);
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeValue(writer, columns.get(i).getAttr().name());
+        }
+        writer.write("\r\n");
+        rows.accept(vo -> {
+            try {
+                for (int i = 0; i < columns.size(); i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    ExcelColumn column = columns.get(i);
+                    if (column.getAttr().isExport()) {
+                        writeValue(writer, formatValue(column, column.getValue(vo), dateFormats, i));
+                    }
+                }
+                writer.write("\r\n");
+            } catch (Exception e) {
+                throw new UtilException("导出CSV失败", e);
+            }
+        });
+        writer.flush();
+        if (gzipOut != null) {
+            gzipOut.finish();
+        }
+    }
+
+    /**
+     * 导入CSV
+     *
+     * @param is 输入流（可为gzip压缩）
+     * @return 转换后集合
+     */
+    public List<T> importCsv(InputStream is) throws Exception {
+        List<T> list = new ArrayList<T>();
+        importCsv(is, list::add);
+        return list;
+    }
+
+    /**
+     * 逐行导入CSV，第一行为表头，每解析一行回调一次
+     *
+     * @param is       输入流（可为gzip压缩）
+     * @param consumer 每行数据的处理
+     */
+    public void importCsv(InputStream is, Consumer<T> consumer) throws Exception {
+        InputStream in = new BufferedInputStream(is, BUFFER_SIZE);
+        in.mark(2);
+        boolean gzip = in.read() == 0x1f && in.read() == 0x8b;
+        in.reset();
+        if (gzip) {
+            in = new GZIPInputStream(in, BUFFER_SIZE);
+        }
+        CsvReader reader = new CsvReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        List<String> record = new ArrayList<String>();
+        if (reader.next(record) == null) {
+            return;
+        }
+        // 表头列号与字段的对应关系
+        List<ExcelColumn> importColumns = ExcelColumn.of(clazz, Type.IMPORT);
+        ExcelColumn[] columns = new ExcelColumn[record.size()];
+        for (int i = 0; i < record.size(); i++) {
+            String name = i == 0 ? StringUtils.removeStart(record.get(i), String.valueOf(BOM)) : record.get(i);
+            for (ExcelColumn column : importColumns) {
+                if (column.getAttr().name().equals(name)) {
+                    columns[i] = column;
+                }
+            }
+        }
+        SimpleDateFormat[] dateFormats = new SimpleDateFormat[columns.length];
+        while (reader.next(record) != null) {
+            // 跳过空行
+            if (record.size() == 1 && record.get(0).isEmpty()) {
+                continue;
+            }
+            T entity = clazz.newInstance();
+            for (int i = 0; i < columns.length; i++) {
+                if (columns[i] != null) {
+                    setImportValue(entity, columns[i], i < record.size() ? record.get(i) : "", dateFormats, i);
+                }
+            }
+            consumer.accept(entity);
+        }
+    }
+
+    /**
+     * 按 sort 排序的列
+     */
+    private List<ExcelColumn> getColumns(Type type) {
+        return ExcelColumn.of(clazz, type).stream().sorted(Comparator.comparing(column -> column.getAttr().sort()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 格式化导出值，规则与 ExcelUtil.addCell 一致
+     */
+    private String formatValue(ExcelColumn column, Object value, SimpleDateFormat[] dateFormats, int index) {
+        Excel attr = column.getAttr();
+        if (StringUtils.isNotEmpty(attr.dateFormat()) && StringUtils.isNotNull(value)) {
+            return getDateFormat(attr, dateFormats, index).format((Date) value);
+        } else if (StringUtils.isNotEmpty(attr.readConverterExp()) && StringUtils.isNotNull(value)) {
+            return column.convertByExp(Convert.toStr(value));
+        } else if (StringUtils.isNotEmpty(attr.dictType()) && StringUtils.isNotNull(value)) {
+            return ExcelUtil.convertDictByExp(Convert.toStr(value), attr.dictType(), attr.separator());
+        } else if (value instanceof BigDecimal && -1 != attr.scale()) {
+            return ((BigDecimal) value).setScale(attr.scale(), attr.roundingMode()).toString();
+        } else if (!attr.handler().equals(ExcelHandlerAdapter.class)) {
+            return column.format(value);
+        } else if (ColumnType.STRING == attr.cellType()) {
+            String cellValue = Convert.toStr(value);
+            if (StringUtils.isNull(cellValue)) {
+                return attr.defaultValue();
+            }
+            // 以表达式触发字符 =-+@ 开头的值加tab前缀，防止CSV注入
+            if (!cellValue.isEmpty() && StringUtils.containsAny(cellValue.substring(0, 1), ExcelUtil.FORMULA_STR)) {
+                cellValue = "\t" + cellValue;
+            }
+            return cellValue + attr.suffix();
+        }
+        return Convert.toStr(value, "");
+    }
+
+    /**
+     * 转换导入值并设置到对象，规则与 ExcelUtil 导入一致；空值不设置
+     */
+    private void setImportValue(T entity, ExcelColumn column, String text, SimpleDateFormat[] dateFormats, int index)
+            throws ParseException {
+        Excel attr = column.getAttr();
+        Class<?> fieldType = column.getField().getType();
+        Object val = text;
+        if (String.class != fieldType && text.isEmpty()) {
+            return;
+        }
+        if ((Integer.TYPE == fieldType || Integer.class == fieldType) && StringUtils.isNumeric(text)) {
+            val = Convert.toInt(text);
+        } else if (Long.TYPE == fieldType || Long.class == fieldType) {
+            val = Convert.toLong(text);
+        } else if (Double.TYPE == fieldType || Double.class == fieldType) {
+            val = Convert.toDouble(text);
+        } else if (Float.TYPE == fieldType || Float.class == fieldType) {
+            val = Convert.toFloat(text);
+        } else if (BigDecimal.class == fieldType) {
+            val = Convert.toBigDecimal(text);
+        } else if (Date.class == fieldType) {
+            val = StringUtils.isNotEmpty(attr.dateFormat()) ? getDateFormat(attr, dateFormats, index).parse(text)
+                    : DateUtils.parseDate(text);
+        } else if (Boolean.TYPE == fieldType || Boolean.class == fieldType) {
+            val = Convert.toBool(text, false);
+        }
+        if (StringUtils.isNotEmpty(attr.targetAttr())) {
+            // 设置到 targetAttr 指定的属性
+        } else if (StringUtils.isNotEmpty(attr.readConverterExp())) {
+            val = column.reverseByExp(Convert.toStr(val));
+        } else if (StringUtils.isNotEmpty(attr.dictType())) {
+            val = ExcelUtil.reverseDictByExp(Convert.toStr(val), attr.dictType(), attr.separator());
+        } else if (!attr.handler().equals(ExcelHandlerAdapter.class)) {
+            val = column.format(val);
+        }
+        column.setValue(entity, val);
+    }
+
+    /**
+     * 每列一个日期格式（CsvUtil实例只在单线程中使用）
+     */
+    private static SimpleDateFormat getDateFormat(Excel attr, SimpleDateFormat[] dateFormats, int index) {
+        if (dateFormats[index] == null) {
+            dateFormats[index] = new SimpleDateFormat(attr.dateFormat());
+        }
+        return dateFormats[index];
+    }
+
+    /**
+     * 写入一个值，包含逗号、引号或换行时加引号，引号转义为两个引号
+     */
+    private static void writeValue(Writer writer, String value) throws IOException {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                quote = true;
+                break;
+            }
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) == '"') {
+                writer.write(value, start, i + 1 - start);
+                writer.write('"');
+                start = i + 1;
+            }
+        }
+        writer.write(value, start, value.length() - start);
+        writer.write('"');
+    }
+
+    /**
+     * 流式CSV解析（RFC 4180），引号内可包含逗号、引号（两个引号转义）和换行
+     */
+    private static final class CsvReader {
+        private final Reader reader;
+
+        private final char[] buffer = new char[8192];
+
+        private final StringBuilder field = new StringBuilder();
+
+        private int pos;
+
+        private int len;
+
+        CsvReader(Reader reader) {
+            this.reader = reader;
+        }
+
+        private int read() throws IOException {
+            if (pos == len) {
+                len = reader.read(buffer, 0, buffer.length);
+                pos = 0;
+                if (len <= 0) {
+                    len = 0;
+                    return -1;
+                }
+            }
+            return buffer[pos++];
+        }
+
+        /**
+         * 读取一条记录
+         *
+         * @param record 存放记录的各个值（会先清空）
+         * @return 记录，已到末尾时返回null
+         */
+        List<String> next(List<String> record) throws IOException {
+            record.clear();
+            int c = read();
+            if (c == -1) {
+                return null;
+            }
+            field.setLength(0);
+            boolean inQuotes = false;
+            for (; ; ) {
+                if (inQuotes) {
+                    if (c == -1) {
+                        record.add(field.toString());
+                        return record;
+                    }
+                    if (c == '"') {
+                        c = read();
+                        if (c != '"') {
+                            inQuotes = false;
+                            continue;
+                        }
+                    }
+                    field.append((char) c);
+                } else if (c == -1 || c == '\n') {
+                    record.add(field.toString());
+                    return record;
+                } else if (c == '\r') {
+                    c = read();
+                    if (c != '\n' && c != -1) {
+                        // 单独的\r也作为换行，退回多读的字符
+                        pos--;
+                    }
+                    record.add(field.toString());
+                    return record;
+                } else if (c == ',') {
+                    record.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '"' && field.length() == 0) {
+                    inQuotes = true;
+                } else {
+                    field.append((char) c);
+                }
+                c = read();
+            }
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package com.ec.common.utils.poi;
+
+import com.ec.common.annotation.Excel;
+import com.ec.common.annotation.Excel.Type;
+import com.ec.common.annotation.Excels;
+import com.ec.common.core.text.Convert;
+import com.ec.common.exception.UtilException;
+import com.ec.common.utils.StringUtils;
+import com.ec.common.utils.reflect.ReflectUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Excel列信息
+ * <p>
+ * 每个类按导入/导出类型解析一次注解并缓存：字段读取和setter编译成 {@link MethodHandle}，
+ * 翻译表达式预先拆分，数据处理器只创建一次（处理器需无状态），逐行读写时不再做反射查找。
+ * </p>
+ *
+ * @author ec
+ */
+public final class ExcelColumn {
+    private static final Logger log = LoggerFactory.getLogger(ExcelColumn.class);
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    /**
+     * 列信息缓存 key:类 value:各类型的列
+     */
+    private static final Map<Class<?>, Map<Type, List<ExcelColumn>>> CACHE = new ConcurrentHashMap<>();
+
+    private final Field field;
+
+    private final Excel attr;
+
+    /**
+     * 字段读取
+     */
+    private final MethodHandle getter;
+
+    /**
+     * targetAttr 各级字段读取，为空时按运行时类型查找
+     */
+    private final MethodHandle[] targetGetters;
+
+    /**
+     * setter，没有setter时为空
+     */
+    private final MethodHandle setter;
+
+    /**
+     * setter参数类型
+     */
+    private final Class<?> setterType;
+
+    /**
+     * 拆分后的翻译表达式，如 0=男,1=女 拆分为 [[0,男],[1,女]]
+     */
+    private final String[][] converterItems;
+
+    /**
+     * 数据处理器
+     */
+    private final ExcelHandlerAdapter handler;
+
+    private ExcelColumn(Class<?> clazz, Field field, Excel attr) throws ReflectiveOperationException {
+        this.field = field;
+        this.attr = attr;
+        field.setAccessible(true);
+        this.getter = LOOKUP.unreflectGetter(field).asType(GETTER_TYPE);
+        this.targetGetters = resolveTargetGetters(field, attr.targetAttr());
+        Method method = findSetter(clazz, "set" + StringUtils.capitalize(field.getName()));
+        if (method != null) {
+            ReflectUtils.makeAccessible(method);
+            this.setter = LOOKUP.unreflect(method).asType(SETTER_TYPE);
+            this.setterType = method.getParameterTypes()[0];
+        } else {
+            this.setter = null;
+            this.setterType = null;
+        }
+        this.converterItems = parseConverterExp(attr.readConverterExp());
+        this.handler = attr.handler().equals(ExcelHandlerAdapter.class) ? null : newHandler(attr);
+    }
+
+    /**
+     * 获取类的Excel列（父类字段在前，按字段声明顺序）
+     *
+     * @param clazz 实体类
+     * @param type  导入/导出类型
+     * @return 列信息
+     */
+    public static List<ExcelColumn> of(Class<?> clazz, Type type) {
+        return CACHE.computeIfAbsent(clazz, c -> new ConcurrentHashMap<>()).computeIfAbsent(type, t -> resolve(clazz, t));
+    }
+
+    private static List<ExcelColumn> resolve(Class<?> clazz, Type type) {
+        List<ExcelColumn> columns = new ArrayList<>();
+        List<Field> tempFields = new ArrayList<>();
+        tempFields.addAll(Arrays.asList(clazz.getSuperclass().getDeclaredFields()));
+        tempFields.addAll(Arrays.asList(clazz.getDeclaredFields()));
+        try {
+            for (Field field : tempFields) {
+                // 单注解
+                if (field.isAnnotationPresent(Excel.class)) {
+                    Excel attr = field.getAnnotation(Excel.class);
+                    if (attr != null && (attr.type() == Type.ALL || attr.type() == type)) {
+                        columns.add(new ExcelColumn(clazz, field, attr));
+                    }
+                }
+
+                // 多注解
+                if (field.isAnnotationPresent(Excels.class)) {
+                    Excels attrs = field.getAnnotation(Excels.class);
+                    for (Excel attr : attrs.value()) {
+                        if (attr != null && (attr.type() == Type.ALL || attr.type() == type)) {
+                            columns.add(new ExcelColumn(clazz, field, attr));
+                        }
+                    }
+                }
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new UtilException(e);
+        }
+        return Collections.unmodifiableList(columns);
+    }
+
+    /**
+     * 按声明类型解析 targetAttr 的各级字段，无法解析时返回空
+     */
+    private static MethodHandle[] resolveTargetGetters(Field field, String targetAttr) {
+        if (StringUtils.isEmpty(targetAttr)) {
+            return new MethodHandle[0];
+        }
+        String[] names = targetAttr.split("[.]");
+        MethodHandle[] getters = new MethodHandle[names.length];
+        Class<?> type = field.getType();
+        try {
+            for (int i = 0; i < names.length; i++) {
+                Field target = type.getDeclaredField(names[i]);
+                target.setAccessible(true);
+                getters[i] = LOOKUP.unreflectGetter(target).asType(GETTER_TYPE);
+                type = target.getType();
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+        return getters;
+    }
+
+    /**
+     * 与 ReflectUtils.invokeSetter 相同：从子类向上查找第一个同名的单参数方法
+     */
+    private static Method findSetter(Class<?> clazz, String name) {
+        for (Class<?> searchType = clazz; searchType != null && searchType != Object.class; searchType = searchType.getSuperclass()) {
+            for (Method method : searchType.getDeclaredMethods()) {
+                if (method.getName().equals(name) && method.getParameterTypes().length == 1) {
+                    return method;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 拆分翻译表达式
+     */
+    static String[][] parseConverterExp(String converterExp) {
+        if (StringUtils.isEmpty(converterExp)) {
+            return null;
+        }
+        String[] convertSource = converterExp.split(",");
+        String[][] items = new String[convertSource.length][];
+        for (int i = 0; i < convertSource.length; i++) {
+            items[i] = convertSource[i].split("=");
+        }
+        return items;
+    }
+
+    private static ExcelHandlerAdapter newHandler(Excel attr) {
+        try {
+            return (ExcelHandlerAdapter) attr.handler().newInstance();
+        } catch (Exception e) {
+            log.error("不能创建数据处理器 " + attr.handler(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 解析导出值 0=男,1=女,2=未知
+     *
+     * @param propertyValue 参数值
+     * @param items         拆分后的翻译表达式
+     * @param separator     分隔符
+     * @param reverse       是否反向解析
+     * @return 解析后值
+     */
+    static String convertByExp(String propertyValue, String[][] items, String separator, boolean reverse) {
+        int from = reverse ? 1 : 0;
+        int to = reverse ? 0 : 1;
+        StringBuilder propertyString = new StringBuilder();
+        for (String[] itemArray : items) {
+            if (StringUtils.containsAny(separator, propertyValue)) {
+                for (String value : propertyValue.split(separator)) {
+                    if (itemArray[from].equals(value)) {
+                        propertyString.append(itemArray[to] + separator);
+                        break;
+                    }
+                }
+            } else {
+                if (itemArray[from].equals(propertyValue)) {
+                    return itemArray[to];
+                }
+            }
+        }
+        return StringUtils.stripEnd(propertyString.toString(), separator);
+    }
+
+    public Field getField() {
+        return field;
+    }
+
+    public Excel getAttr() {
+        return attr;
+    }
+
+    /**
+     * 获取导出的属性值（含 targetAttr）
+     *
+     * @param vo 实体对象
+     * @return 属性值
+     */
+    public Object getValue(Object vo) throws Exception {
+        Object o = invokeGetter(getter, vo);
+        if (targetGetters == null) {
+            // 声明类型中找不到时按运行时类型查找
+            for (String name : attr.targetAttr().split("[.]")) {
+                if (StringUtils.isNotNull(o) && StringUtils.isNotEmpty(name)) {
+                    Field target = o.getClass().getDeclaredField(name);
+                    target.setAccessible(true);
+                    o = target.get(o);
+                }
+            }
+        } else {
+            for (MethodHandle targetGetter : targetGetters) {
+                if (o != null) {
+                    o = invokeGetter(targetGetter, o);
+                }
+            }
+        }
+        return o;
+    }
+
+    /**
+     * 设置导入的属性值，规则与 ReflectUtils.invokeSetter 一致
+     *
+     * @param entity 实体对象
+     * @param value  属性值
+     */
+    public void setValue(Object entity, Object value) {
+        if (StringUtils.isNotEmpty(attr.targetAttr())) {
+            ReflectUtils.invokeSetter(entity, field.getName() + "." + attr.targetAttr(), value);
+            return;
+        }
+        if (setter == null) {
+            return;
+        }
+        Object arg = ReflectUtils.convertArgument(value, setterType);
+        try {
+            setter.invokeExact(entity, arg);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new UtilException(e);
+        }
+    }
+
+    /**
+     * 按 readConverterExp 解析导出值
+     */
+    public String convertByExp(String propertyValue) {
+        return convertByExp(propertyValue, converterItems, attr.separator(), false);
+    }
+
+    /**
+     * 按 readConverterExp 反向解析导入值
+     */
+    public String reverseByExp(String propertyValue) {
+        return convertByExp(propertyValue, converterItems, attr.separator(), true);
+    }
+
+    /**
+     * 调用数据处理器格式化
+     */
+    public String format(Object value) {
+        try {
+            if (handler != null) {
+                value = handler.format(value, attr.args());
+            }
+        } catch (Exception e) {
+            log.error("不能格式化数据 " + attr.handler(), e.getMessage());
+        }
+        return Convert.toStr(value);
+    }
+
+    private static Object invokeGetter(MethodHandle getter, Object o) throws Exception {
+        try {
+            return (Object) getter.invokeExact(o);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new UtilException(e);
+        }
+    }
+}
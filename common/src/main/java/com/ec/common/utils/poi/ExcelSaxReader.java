@@ -0,0 +1,392 @@
+package com.ec.common.utils.poi;
+
+import com.ec.common.utils.StringUtils;
+import org.apache.poi.ooxml.POIXMLTypeLoader;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.openxml4j.opc.PackageRelationship;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.ss.usermodel.PictureData;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.util.IOUtils;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFRelation;
+import org.apache.xmlbeans.XmlOptions;
+import org.openxmlformats.schemas.drawingml.x2006.spreadsheetDrawing.CTDrawing;
+import org.openxmlformats.schemas.drawingml.x2006.spreadsheetDrawing.CTMarker;
+import org.openxmlformats.schemas.drawingml.x2006.spreadsheetDrawing.CTOneCellAnchor;
+import org.openxmlformats.schemas.drawingml.x2006.spreadsheetDrawing.CTPicture;
+import org.openxmlformats.schemas.drawingml.x2006.spreadsheetDrawing.CTTwoCellAnchor;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.SAXParserFactory;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * xlsx流式读取
+ * <p>
+ * 基于SAX逐行解析工作表XML，每行解析完立即回调，不构建工作簿对象，内存占用与行数无关；
+ * 单元格取值规则与 {@link ExcelUtil#getCellValue} 一致。图片只在调用 {@link SheetContext#getPictures()} 时
+ * 建立索引，图片内容在读取时才加载。
+ * </p>
+ *
+ * @author ec
+ */
+class ExcelSaxReader {
+    private static final String SHEET_NS = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+
+    /**
+     * 行处理
+     */
+    interface RowHandler {
+        /**
+         * 处理一行
+         *
+         * @param context 工作表信息
+         * @param rowNum  行号（从0开始）
+         * @param values  单元格值，下标为列号，没有单元格的列为null
+         * @param cells   行中实际存在的单元格数
+         * @param blank   是否是空行
+         */
+        void row(SheetContext context, int rowNum, List<Object> values, int cells, boolean blank) throws Exception;
+    }
+
+    private ExcelSaxReader() {
+    }
+
+    /**
+     * 读取工作表
+     *
+     * @param file      xlsx文件
+     * @param sheetName 工作表名称，为空时读取第一个
+     * @param handler   行处理
+     */
+    static void read(File file, String sheetName, RowHandler handler) throws Exception {
+        OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ);
+        try {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheets.hasNext()) {
+                try (InputStream sheet = sheets.next()) {
+                    if (StringUtils.isNotEmpty(sheetName) && !sheetName.equals(sheets.getSheetName())) {
+                        continue;
+                    }
+                    SheetContext context = new SheetContext(sheets.getSheetPart());
+                    parse(sheet, new SheetHandler(context, strings, styles, handler));
+                    return;
+                }
+            }
+            throw new IOException("文件sheet不存在");
+        } finally {
+            pkg.revert();
+        }
+    }
+
+    private static void parse(InputStream sheet, SheetHandler handler) throws Exception {
+        SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setNamespaceAware(true);
+        factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+        XMLReader xmlReader = factory.newSAXParser().getXMLReader();
+        xmlReader.setContentHandler(handler);
+        try {
+            xmlReader.parse(new InputSource(sheet));
+        } catch (SAXException e) {
+            if (e.getException() != null) {
+                throw e.getException();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 工作表信息
+     */
+    static class SheetContext {
+        private final PackagePart sheetPart;
+
+        private Map<String, PictureData> pictures;
+
+        SheetContext(PackagePart sheetPart) {
+            this.sheetPart = sheetPart;
+        }
+
+        /**
+         * 工作表中的图片，key:图片单元格索引（1_1），第一次调用时建立索引
+         */
+        Map<String, PictureData> getPictures() throws Exception {
+            if (pictures == null) {
+                pictures = readPictures(sheetPart);
+            }
+            return pictures;
+        }
+    }
+
+    private static Map<String, PictureData> readPictures(PackagePart sheetPart) throws Exception {
+        Map<String, PictureData> pictures = new HashMap<>();
+        for (PackageRelationship rel : sheetPart.getRelationshipsByType(XSSFRelation.DRAWINGS.getRelation())) {
+            PackagePart drawingPart = sheetPart.getRelatedPart(rel);
+            XmlOptions options = new XmlOptions(POIXMLTypeLoader.DEFAULT_XML_OPTIONS);
+            options.setLoadReplaceDocumentElement(null);
+            CTDrawing drawing;
+            try (InputStream in = drawingPart.getInputStream()) {
+                drawing = CTDrawing.Factory.parse(in, options);
+            }
+            for (CTTwoCellAnchor anchor : drawing.getTwoCellAnchorArray()) {
+                if (anchor.isSetPic()) {
+                    putPicture(pictures, drawingPart, anchor.getFrom(), anchor.getPic());
+                }
+            }
+            for (CTOneCellAnchor anchor : drawing.getOneCellAnchorArray()) {
+                if (anchor.isSetPic()) {
+                    putPicture(pictures, drawingPart, anchor.getFrom(), anchor.getPic());
+                }
+            }
+        }
+        return pictures.isEmpty() ? Collections.emptyMap() : pictures;
+    }
+
+    private static void putPicture(Map<String, PictureData> pictures, PackagePart drawingPart, CTMarker from, CTPicture pic)
+            throws Exception {
+        if (pic.getBlipFill() == null || pic.getBlipFill().getBlip() == null) {
+            return;
+        }
+        PackageRelationship rel = drawingPart.getRelationship(pic.getBlipFill().getBlip().getEmbed());
+        if (rel != null) {
+            pictures.put(from.getRow() + "_" + from.getCol(), new LazyPictureData(drawingPart.getRelatedPart(rel)));
+        }
+    }
+
+    /**
+     * 读取时才加载内容的图片
+     */
+    private static class LazyPictureData implements PictureData {
+        private final PackagePart part;
+
+        LazyPictureData(PackagePart part) {
+            this.part = part;
+        }
+
+        @Override
+        public byte[] getData() {
+            try (InputStream in = part.getInputStream()) {
+                return IOUtils.toByteArray(in);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public String suggestFileExtension() {
+            return part.getPartName().getExtension();
+        }
+
+        @Override
+        public String getMimeType() {
+            return part.getContentType();
+        }
+
+        @Override
+        public int getPictureType() {
+            return "image/png".equals(part.getContentType()) ? Workbook.PICTURE_TYPE_PNG : Workbook.PICTURE_TYPE_JPEG;
+        }
+    }
+
+    /**
+     * 工作表XML解析
+     */
+    private static class SheetHandler extends DefaultHandler {
+        private final SheetContext context;
+
+        private final ReadOnlySharedStringsTable strings;
+
+        private final StylesTable styles;
+
+        private final RowHandler handler;
+
+        private final StringBuilder text = new StringBuilder();
+
+        private final List<Object> values = new ArrayList<>();
+
+        /**
+         * 样式是否为日期格式的缓存
+         */
+        private final Map<Integer, Boolean> dateStyles = new HashMap<>();
+
+        private final DecimalFormat integerFormat = new DecimalFormat("0");
+
+        private int rowNum = -1;
+
+        private int column;
+
+        private int cells;
+
+        private boolean blank;
+
+        private String cellType;
+
+        private int styleIndex;
+
+        private boolean hasValue;
+
+        private boolean inValue;
+
+        SheetHandler(SheetContext context, ReadOnlySharedStringsTable strings, StylesTable styles, RowHandler handler) {
+            this.context = context;
+            this.strings = strings;
+            this.styles = styles;
+            this.handler = handler;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            if (!SHEET_NS.equals(uri)) {
+                return;
+            }
+            switch (localName) {
+                case "row":
+                    String r = attributes.getValue("r");
+                    rowNum = r != null ? Integer.parseInt(r) - 1 : rowNum + 1;
+                    values.clear();
+                    column = -1;
+                    cells = 0;
+                    blank = true;
+                    break;
+                case "c":
+                    String ref = attributes.getValue("r");
+                    column = ref != null ? columnIndex(ref) : column + 1;
+                    cellType = attributes.getValue("t");
+                    String s = attributes.getValue("s");
+                    styleIndex = s != null ? Integer.parseInt(s) : 0;
+                    hasValue = false;
+                    text.setLength(0);
+                    cells++;
+                    break;
+                case "v":
+                case "t":
+                    inValue = true;
+                    hasValue = true;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inValue) {
+                text.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            if (!SHEET_NS.equals(uri)) {
+                return;
+            }
+            switch (localName) {
+                case "v":
+                case "t":
+                    inValue = false;
+                    break;
+                case "c":
+                    while (values.size() <= column) {
+                        values.add(null);
+                    }
+                    values.set(column, cellValue());
+                    if (hasValue) {
+                        blank = false;
+                    }
+                    break;
+                case "row":
+                    try {
+                        handler.row(context, rowNum, values, cells, blank);
+                    } catch (Exception e) {
+                        throw new SAXException(e);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        /**
+         * 单元格值，规则与 ExcelUtil.getCellValue 一致
+         */
+        private Object cellValue() {
+            if (!hasValue) {
+                return "";
+            }
+            String value = text.toString();
+            try {
+                if ("s".equals(cellType)) {
+                    return strings.getItemAt(Integer.parseInt(value.trim())).getString();
+                } else if ("inlineStr".equals(cellType)) {
+                    return value;
+                } else if ("b".equals(cellType)) {
+                    return "1".equals(value.trim());
+                } else if ("e".equals(cellType)) {
+                    return FormulaError.forString(value).getCode();
+                } else if ("str".equals(cellType)) {
+                    // 公式的字符串结果按数值读取会失败
+                    return "";
+                }
+                double d = Double.parseDouble(value);
+                if (isDateStyle(styleIndex) && DateUtil.isValidExcelDate(d)) {
+                    return DateUtil.getJavaDate(d);
+                }
+                Double val = d;
+                if (d % 1 != 0) {
+                    return new BigDecimal(val.toString());
+                }
+                return integerFormat.format(val);
+            } catch (RuntimeException e) {
+                return "";
+            }
+        }
+
+        private boolean isDateStyle(int index) {
+            if (styles == null) {
+                return false;
+            }
+            return dateStyles.computeIfAbsent(index, i -> {
+                XSSFCellStyle style = styles.getStyleAt(i);
+                return style != null && DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString());
+            });
+        }
+    }
+
+    /**
+     * 单元格引用（如 AB12）转换为列号
+     */
+    static int columnIndex(String ref) {
+        int column = 0;
+        for (int i = 0; i < ref.length(); i++) {
+            char c = ref.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                break;
+            }
+            column = column * 26 + (c - 'A' + 1);
+        }
+        return column - 1;
+    }
+}
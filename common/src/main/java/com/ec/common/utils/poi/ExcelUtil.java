@@ -3,7 +3,6 @@ package com.ec.common.utils.poi;
 import com.ec.common.annotation.Excel;
 import com.ec.common.annotation.Excel.ColumnType;
 import com.ec.common.annotation.Excel.Type;
-import com.ec.common.annotation.Excels;
 import com.ec.common.config.ErpCrmConfig;
 import com.ec.common.core.domain.AjaxResult;
 import com.ec.common.core.text.Convert;
@@ -14,9 +13,9 @@ import com.ec.common.utils.StringUtils;
 import com.ec.common.utils.file.FileTypeUtils;
 import com.ec.common.utils.file.FileUtils;
 import com.ec.common.utils.file.ImageUtils;
-import com.ec.common.utils.reflect.ReflectUtils;
 import org.apache.poi.hssf.usermodel.*;
 import org.apache.poi.ooxml.POIXMLDocumentPart;
+import org.apache.poi.poifs.filesystem.FileMagic;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.ss.util.CellRangeAddress;
 import org.apache.poi.ss.util.CellRangeAddressList;
@@ -29,11 +28,14 @@ import org.slf4j.LoggerFactory;
 
 import javax.servlet.http.HttpServletResponse;
 import java.io.*;
-import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.text.DecimalFormat;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -83,7 +85,7 @@ public class ExcelUtil<T> {
     /**
      * 注解列表
      */
-    private List<Object[]> fields;
+    private List<ExcelColumn> fields;
     /**
      * 当前行号
      */
@@ -100,6 +102,14 @@ public class ExcelUtil<T> {
      * 统计列表
      */
     private Map<Integer, Double> statistics = new HashMap<Integer, Double>();
+    /**
+     * 流式导出时当前sheet序号
+     */
+    private int sheetIndex;
+    /**
+     * 流式导出时当前sheet已写入的数据行数
+     */
+    private int sheetRows;
 
     public ExcelUtil(Class<T> clazz) {
         this.clazz = clazz;
@@ -124,24 +134,7 @@ public class ExcelUtil<T> {
      * @return 解析后值
      */
     public static String convertByExp(String propertyValue, String converterExp, String separator) {
-        StringBuilder propertyString = new StringBuilder();
-        String[] convertSource = converterExp.split(",");
-        for (String item : convertSource) {
-            String[] itemArray = item.split("=");
-            if (StringUtils.containsAny(separator, propertyValue)) {
-                for (String value : propertyValue.split(separator)) {
-                    if (itemArray[0].equals(value)) {
-                        propertyString.append(itemArray[1] + separator);
-                        break;
-                    }
-                }
-            } else {
-                if (itemArray[0].equals(propertyValue)) {
-                    return itemArray[1];
-                }
-            }
-        }
-        return StringUtils.stripEnd(propertyString.toString(), separator);
+        return ExcelColumn.convertByExp(propertyValue, ExcelColumn.parseConverterExp(converterExp), separator, false);
     }
 
     /**
@@ -153,24 +146,7 @@ public class ExcelUtil<T> {
      * @return 解析后值
      */
     public static String reverseByExp(String propertyValue, String converterExp, String separator) {
-        StringBuilder propertyString = new StringBuilder();
-        String[] convertSource = converterExp.split(",");
-        for (String item : convertSource) {
-            String[] itemArray = item.split("=");
-            if (StringUtils.containsAny(separator, propertyValue)) {
-                for (String value : propertyValue.split(separator)) {
-                    if (itemArray[1].equals(value)) {
-                        propertyString.append(itemArray[0] + separator);
-                        break;
-                    }
-                }
-            } else {
-                if (itemArray[1].equals(propertyValue)) {
-                    return itemArray[0];
-                }
-            }
-        }
-        return StringUtils.stripEnd(propertyString.toString(), separator);
+        return ExcelColumn.convertByExp(propertyValue, ExcelColumn.parseConverterExp(converterExp), separator, true);
     }
 
     /**
@@ -309,9 +285,85 @@ public class ExcelUtil<T> {
      * @return 转换后集合
      */
     public List<T> importExcel(String sheetName, InputStream is, int titleNum) throws Exception {
+        List<T> list = new ArrayList<T>();
+        importExcel(sheetName, is, titleNum, list::add);
+        return list;
+    }
+
+    /**
+     * 对excel表单默认第一个索引名逐行导入
+     *
+     * @param is       输入流
+     * @param titleNum 标题占用行数
+     * @param consumer 每行数据的处理
+     */
+    public void importExcel(InputStream is, int titleNum, Consumer<T> consumer) throws Exception {
+        importExcel(StringUtils.EMPTY, is, titleNum, consumer);
+    }
+
+    /**
+     * 对excel表单指定表格索引名逐行导入，每解析一行回调一次
+     * <p>
+     * xlsx文件基于SAX流式解析，内存占用与行数无关，图片只在有图片列时读取；xls文件仍整体读入。
+     * </p>
+     *
+     * @param sheetName 表格索引名
+     * @param is        输入流
+     * @param titleNum  标题占用行数
+     * @param consumer  每行数据的处理
+     */
+    public void importExcel(String sheetName, InputStream is, int titleNum, Consumer<T> consumer) throws Exception {
         this.type = Type.IMPORT;
+        InputStream in = FileMagic.prepareToCheckMagic(is);
+        if (FileMagic.valueOf(in) == FileMagic.OOXML) {
+            // 从文件打开只按需解压工作表，从流打开会把整个压缩包解压到内存
+            File file = File.createTempFile("import", ".xlsx");
+            try {
+                Files.copy(in, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                importXlsx(sheetName, file, titleNum, consumer);
+            } finally {
+                Files.deleteIfExists(file.toPath());
+            }
+        } else {
+            importWorkbook(sheetName, in, titleNum, consumer);
+        }
+    }
+
+    /**
+     * 流式读取xlsx
+     */
+    private void importXlsx(String sheetName, File file, int titleNum, Consumer<T> consumer) throws Exception {
+        Map<Integer, ExcelColumn> fieldsMap = new HashMap<Integer, ExcelColumn>();
+        ExcelSaxReader.read(file, sheetName, (context, rowNum, values, cells, blank) -> {
+            if (rowNum == titleNum) {
+                // 定义一个map用于存放excel列的序号和field.
+                Map<String, Integer> cellMap = new HashMap<String, Integer>();
+                for (int i = 0; i < cells; i++) {
+                    Object value = i < values.size() ? values.get(i) : null;
+                    cellMap.put(value == null ? null : value.toString(), i);
+                }
+                fieldsMap.putAll(getFieldsMap(cellMap));
+            } else if (rowNum > titleNum && !blank) {
+                T entity = null;
+                for (Map.Entry<Integer, ExcelColumn> entry : fieldsMap.entrySet()) {
+                    int column = entry.getKey();
+                    Object val = column < values.size() && values.get(column) != null ? values.get(column) : "";
+                    // 如果不存在实例则新建.
+                    entity = (entity == null ? clazz.newInstance() : entity);
+                    setImportValue(entity, entry.getValue(), val, rowNum + "_" + column, context::getPictures);
+                }
+                if (entity != null) {
+                    consumer.accept(entity);
+                }
+            }
+        });
+    }
+
+    /**
+     * 读取整个工作簿（xls）
+     */
+    private void importWorkbook(String sheetName, InputStream is, int titleNum, Consumer<T> consumer) throws Exception {
         this.wb = WorkbookFactory.create(is);
-        List<T> list = new ArrayList<T>();
         // 如果指定sheet名,则取指定sheet中的内容 否则默认指向第1个sheet
         Sheet sheet = StringUtils.isNotEmpty(sheetName) ? wb.getSheet(sheetName) : wb.getSheetAt(0);
         if (sheet == null) {
@@ -342,15 +394,7 @@ public class ExcelUtil<T> {
                 }
             }
             // 有数据时才处理 得到类的所有field.
-            List<Object[]> fields = this.getFields();
-            Map<Integer, Object[]> fieldsMap = new HashMap<Integer, Object[]>();
-            for (Object[] objects : fields) {
-                Excel attr = (Excel) objects[1];
-                Integer column = cellMap.get(attr.name());
-                if (column != null) {
-                    fieldsMap.put(column, objects);
-                }
-            }
+            Map<Integer, ExcelColumn> fieldsMap = getFieldsMap(cellMap);
             for (int i = titleNum + 1; i <= rows; i++) {
                 // 从第2行开始取数据,默认第一行是表头.
                 Row row = sheet.getRow(i);
@@ -359,73 +403,105 @@ public class ExcelUtil<T> {
                     continue;
                 }
                 T entity = null;
-                for (Map.Entry<Integer, Object[]> entry : fieldsMap.entrySet()) {
+                for (Map.Entry<Integer, ExcelColumn> entry : fieldsMap.entrySet()) {
                     Object val = this.getCellValue(row, entry.getKey());
 
                     // 如果不存在实例则新建.
                     entity = (entity == null ? clazz.newInstance() : entity);
-                    // 从map中得到对应列的field.
-                    Field field = (Field) entry.getValue()[0];
-                    Excel attr = (Excel) entry.getValue()[1];
-                    // 取得类型,并根据对象类型设置值.
-                    Class<?> fieldType = field.getType();
-                    if (String.class == fieldType) {
-                        String s = Convert.toStr(val);
-                        if (StringUtils.endsWith(s, ".0")) {
-                            val = StringUtils.substringBefore(s, ".0");
-                        } else {
-                            String dateFormat = field.getAnnotation(Excel.class).dateFormat();
-                            if (StringUtils.isNotEmpty(dateFormat)) {
-                                val = DateUtils.parseDateToStr(dateFormat, (Date) val);
-                            } else {
-                                val = Convert.toStr(val);
-                            }
-                        }
-                    } else if ((Integer.TYPE == fieldType || Integer.class == fieldType) && StringUtils.isNumeric(Convert.toStr(val))) {
-                        val = Convert.toInt(val);
-                    } else if (Long.TYPE == fieldType || Long.class == fieldType) {
-                        val = Convert.toLong(val);
-                    } else if (Double.TYPE == fieldType || Double.class == fieldType) {
-                        val = Convert.toDouble(val);
-                    } else if (Float.TYPE == fieldType || Float.class == fieldType) {
-                        val = Convert.toFloat(val);
-                    } else if (BigDecimal.class == fieldType) {
-                        val = Convert.toBigDecimal(val);
-                    } else if (Date.class == fieldType) {
-                        if (val instanceof String) {
-                            val = DateUtils.parseDate(val);
-                        } else if (val instanceof Double) {
-                            val = DateUtil.getJavaDate((Double) val);
-                        }
-                    } else if (Boolean.TYPE == fieldType || Boolean.class == fieldType) {
-                        val = Convert.toBool(val, false);
-                    }
-                    if (StringUtils.isNotNull(fieldType)) {
-                        String propertyName = field.getName();
-                        if (StringUtils.isNotEmpty(attr.targetAttr())) {
-                            propertyName = field.getName() + "." + attr.targetAttr();
-                        } else if (StringUtils.isNotEmpty(attr.readConverterExp())) {
-                            val = reverseByExp(Convert.toStr(val), attr.readConverterExp(), attr.separator());
-                        } else if (StringUtils.isNotEmpty(attr.dictType())) {
-                            val = reverseDictByExp(Convert.toStr(val), attr.dictType(), attr.separator());
-                        } else if (!attr.handler().equals(ExcelHandlerAdapter.class)) {
-                            val = dataFormatHandlerAdapter(val, attr);
-                        } else if (ColumnType.IMAGE == attr.cellType() && StringUtils.isNotEmpty(pictures)) {
-                            PictureData image = pictures.get(row.getRowNum() + "_" + entry.getKey());
-                            if (image == null) {
-                                val = "";
-                            } else {
-                                byte[] data = image.getData();
-                                val = FileUtils.writeImportBytes(data);
-                            }
-                        }
-                        ReflectUtils.invokeSetter(entity, propertyName, val);
+                    setImportValue(entity, entry.getValue(), val, row.getRowNum() + "_" + entry.getKey(), () -> pictures);
+                }
+                if (entity != null) {
+                    consumer.accept(entity);
+                }
+            }
+        }
+    }
+
+    /**
+     * 表头列号与字段的对应关系
+     *
+     * @param cellMap 表头名称与列号
+     * @return key:列号 value:列信息
+     */
+    private Map<Integer, ExcelColumn> getFieldsMap(Map<String, Integer> cellMap) {
+        Map<Integer, ExcelColumn> fieldsMap = new HashMap<Integer, ExcelColumn>();
+        for (ExcelColumn excelColumn : ExcelColumn.of(clazz, type)) {
+            Integer column = cellMap.get(excelColumn.getAttr().name());
+            if (column != null) {
+                fieldsMap.put(column, excelColumn);
+            }
+        }
+        return fieldsMap;
+    }
+
+    /**
+     * 转换单元格值并设置到对象
+     *
+     * @param entity   对象
+     * @param column   列信息
+     * @param val      单元格值
+     * @param picIndex 图片单元格索引（行_列）
+     * @param pictures 工作表中的图片，只有图片列才会获取
+     */
+    private void setImportValue(T entity, ExcelColumn column, Object val, String picIndex,
+                                Callable<Map<String, PictureData>> pictures) throws Exception {
+        Excel attr = column.getAttr();
+        // 取得类型,并根据对象类型设置值.
+        Class<?> fieldType = column.getField().getType();
+        if (String.class == fieldType) {
+            String s = Convert.toStr(val);
+            if (StringUtils.endsWith(s, ".0")) {
+                val = StringUtils.substringBefore(s, ".0");
+            } else {
+                String dateFormat = attr.dateFormat();
+                if (StringUtils.isNotEmpty(dateFormat)) {
+                    val = DateUtils.parseDateToStr(dateFormat, (Date) val);
+                } else {
+                    val = Convert.toStr(val);
+                }
+            }
+        } else if ((Integer.TYPE == fieldType || Integer.class == fieldType) && StringUtils.isNumeric(Convert.toStr(val))) {
+            val = Convert.toInt(val);
+        } else if (Long.TYPE == fieldType || Long.class == fieldType) {
+            val = Convert.toLong(val);
+        } else if (Double.TYPE == fieldType || Double.class == fieldType) {
+            val = Convert.toDouble(val);
+        } else if (Float.TYPE == fieldType || Float.class == fieldType) {
+            val = Convert.toFloat(val);
+        } else if (BigDecimal.class == fieldType) {
+            val = Convert.toBigDecimal(val);
+        } else if (Date.class == fieldType) {
+            if (val instanceof String) {
+                val = DateUtils.parseDate(val);
+            } else if (val instanceof Double) {
+                val = DateUtil.getJavaDate((Double) val);
+            }
+        } else if (Boolean.TYPE == fieldType || Boolean.class == fieldType) {
+            val = Convert.toBool(val, false);
+        }
+        if (StringUtils.isNotNull(fieldType)) {
+            if (StringUtils.isNotEmpty(attr.targetAttr())) {
+                // 设置到 targetAttr 指定的属性
+            } else if (StringUtils.isNotEmpty(attr.readConverterExp())) {
+                val = column.reverseByExp(Convert.toStr(val));
+            } else if (StringUtils.isNotEmpty(attr.dictType())) {
+                val = reverseDictByExp(Convert.toStr(val), attr.dictType(), attr.separator());
+            } else if (!attr.handler().equals(ExcelHandlerAdapter.class)) {
+                val = column.format(val);
+            } else if (ColumnType.IMAGE == attr.cellType()) {
+                Map<String, PictureData> sheetPictures = pictures.call();
+                if (StringUtils.isNotEmpty(sheetPictures)) {
+                    PictureData image = sheetPictures.get(picIndex);
+                    if (image == null) {
+                        val = "";
+                    } else {
+                        byte[] data = image.getData();
+                        val = FileUtils.writeImportBytes(data);
                     }
                 }
-                list.add(entity);
             }
+            column.setValue(entity, val);
         }
-        return list;
     }
 
     /**
@@ -482,6 +558,66 @@ public class ExcelUtil<T> {
         exportExcel(response);
     }
 
+    /**
+     * 逐行导出数据到excel表单，直接写入响应流
+     * <p>
+     * 数据由查询逐行推送（如MyBatis的ResultHandler），不在内存中保存完整列表；
+     * 工作簿只在内存中保留最近的行，超过sheetSize行自动新建sheet。
+     * </p>
+     *
+     * @param response  返回数据
+     * @param sheetName 工作表的名称
+     * @param title     标题
+     * @param rows      数据来源，参数为每行数据的处理
+     */
+    public void exportExcel(HttpServletResponse response, String sheetName, String title, Consumer<Consumer<T>> rows) {
+        response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+        response.setCharacterEncoding("utf-8");
+        try {
+            exportExcel(response.getOutputStream(), sheetName, title, rows);
+        } catch (Exception e) {
+            log.error("导出Excel异常{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 逐行导出数据到excel表单，写入指定输出流（如后台任务的结果文件）
+     *
+     * @param out       输出流，由调用方关闭
+     * @param sheetName 工作表的名称
+     * @param title     标题
+     * @param rows      数据来源，参数为每行数据的处理
+     */
+    public void exportExcel(OutputStream out, String sheetName, String title, Consumer<Consumer<T>> rows) throws IOException {
+        this.init(null, sheetName, title, Type.EXPORT);
+        try {
+            this.sheetIndex = 0;
+            this.sheetRows = 0;
+            createHeadRow();
+            rows.accept(this::appendRow);
+            addStatisticsRow();
+            wb.write(out);
+        } finally {
+            closeWorkbook();
+        }
+    }
+
+    /**
+     * 流式导出写入一行数据，当前sheet写满时新建sheet
+     */
+    private void appendRow(T vo) {
+        if (sheetRows >= sheetSize) {
+            addStatisticsRow();
+            sheetIndex++;
+            createSheet(sheetIndex + 1, sheetIndex);
+            createHeadRow();
+            sheetRows = 0;
+        }
+        Row row = sheet.createRow(sheetRows + 1 + rownum);
+        fillRow(row, vo);
+        sheetRows++;
+    }
+
     /**
      * 对list数据源将其里面的数据导入到excel表单
      *
@@ -540,7 +676,7 @@ public class ExcelUtil<T> {
         } catch (Exception e) {
             log.error("导出Excel异常{}", e.getMessage());
         } finally {
-            IOUtils.closeQuietly(wb);
+            closeWorkbook();
         }
     }
 
@@ -561,11 +697,21 @@ public class ExcelUtil<T> {
             log.error("导出Excel异常{}", e.getMessage());
             throw new UtilException("导出Excel失败，请联系网站管理员！");
         } finally {
-            IOUtils.closeQuietly(wb);
+            closeWorkbook();
             IOUtils.closeQuietly(out);
         }
     }
 
+    /**
+     * 关闭工作簿并删除SXSSF的临时文件
+     */
+    private void closeWorkbook() {
+        if (wb instanceof SXSSFWorkbook) {
+            ((SXSSFWorkbook) wb).dispose();
+        }
+        IOUtils.closeQuietly(wb);
+    }
+
     /**
      * 创建写入数据到Sheet
      */
@@ -576,13 +722,7 @@ public class ExcelUtil<T> {
             createSheet(sheetNo, index);
 
             // 产生一行
-            Row row = sheet.createRow(rownum);
-            int column = 0;
-            // 写入各个字段的列头名称
-            for (Object[] os : fields) {
-                Excel excel = (Excel) os[1];
-                this.createCell(excel, row, column++);
-            }
+            Row row = createHeadRow();
             if (Type.EXPORT.equals(type)) {
                 fillExcelData(index, row);
                 addStatisticsRow();
@@ -590,6 +730,19 @@ public class ExcelUtil<T> {
         }
     }
 
+    /**
+     * 创建列头行
+     */
+    private Row createHeadRow() {
+        Row row = sheet.createRow(rownum);
+        int column = 0;
+        // 写入各个字段的列头名称
+        for (ExcelColumn excelColumn : fields) {
+            this.createCell(excelColumn.getAttr(), row, column++);
+        }
+        return row;
+    }
+
     /**
      * 填充excel数据
      *
@@ -603,12 +756,17 @@ public class ExcelUtil<T> {
             row = sheet.createRow(i + 1 + rownum - startNo);
             // 得到导出对象.
             T vo = (T) list.get(i);
-            int column = 0;
-            for (Object[] os : fields) {
-                Field field = (Field) os[0];
-                Excel excel = (Excel) os[1];
-                this.addCell(excel, row, vo, field, column++);
-            }
+            fillRow(row, vo);
+        }
+    }
+
+    /**
+     * 填充一行数据
+     */
+    private void fillRow(Row row, T vo) {
+        int column = 0;
+        for (ExcelColumn excelColumn : fields) {
+            this.addCell(excelColumn, row, vo, column++);
         }
     }
 
@@ -770,7 +928,8 @@ public class ExcelUtil<T> {
     /**
      * 添加单元格
      */
-    public Cell addCell(Excel attr, Row row, T vo, Field field, int column) {
+    public Cell addCell(ExcelColumn excelColumn, Row row, T vo, int column) {
+        Excel attr = excelColumn.getAttr();
         Cell cell = null;
         try {
             // 设置行高
@@ -783,7 +942,7 @@ public class ExcelUtil<T> {
                 cell.setCellStyle(styles.get("data" + (align >= 1 && align <= 3 ? align : "")));
 
                 // 用于读取对象中的属性
-                Object value = getTargetValue(vo, field, attr);
+                Object value = excelColumn.getValue(vo);
                 String dateFormat = attr.dateFormat();
                 String readConverterExp = attr.readConverterExp();
                 String separator = attr.separator();
@@ -791,13 +950,13 @@ public class ExcelUtil<T> {
                 if (StringUtils.isNotEmpty(dateFormat) && StringUtils.isNotNull(value)) {
                     cell.setCellValue(DateUtils.parseDateToStr(dateFormat, (Date) value));
                 } else if (StringUtils.isNotEmpty(readConverterExp) && StringUtils.isNotNull(value)) {
-                    cell.setCellValue(convertByExp(Convert.toStr(value), readConverterExp, separator));
+                    cell.setCellValue(excelColumn.convertByExp(Convert.toStr(value)));
                 } else if (StringUtils.isNotEmpty(dictType) && StringUtils.isNotNull(value)) {
                     cell.setCellValue(convertDictByExp(Convert.toStr(value), dictType, separator));
                 } else if (value instanceof BigDecimal && -1 != attr.scale()) {
                     cell.setCellValue((((BigDecimal) value).setScale(attr.scale(), attr.roundingMode())).toString());
                 } else if (!attr.handler().equals(ExcelHandlerAdapter.class)) {
-                    cell.setCellValue(dataFormatHandlerAdapter(value, attr));
+                    cell.setCellValue(excelColumn.format(value));
                 } else {
                     // 设置列类型
                     setCellVo(value, attr, cell);
@@ -939,55 +1098,12 @@ public class ExcelUtil<T> {
         return downloadPath;
     }
 
-    /**
-     * 获取bean中的属性值
-     *
-     * @param vo    实体对象
-     * @param field 字段
-     * @param excel 注解
-     * @return 最终的属性值
-     * @throws Exception
-     */
-    private Object getTargetValue(T vo, Field field, Excel excel) throws Exception {
-        Object o = field.get(vo);
-        if (StringUtils.isNotEmpty(excel.targetAttr())) {
-            String target = excel.targetAttr();
-            if (target.indexOf(".") > -1) {
-                String[] targets = target.split("[.]");
-                for (String name : targets) {
-                    o = getValue(o, name);
-                }
-            } else {
-                o = getValue(o, target);
-            }
-        }
-        return o;
-    }
-
-    /**
-     * 以类的属性的get方法方法形式获取值
-     *
-     * @param o
-     * @param name
-     * @return value
-     * @throws Exception
-     */
-    private Object getValue(Object o, String name) throws Exception {
-        if (StringUtils.isNotNull(o) && StringUtils.isNotEmpty(name)) {
-            Class<?> clazz = o.getClass();
-            Field field = clazz.getDeclaredField(name);
-            field.setAccessible(true);
-            o = field.get(o);
-        }
-        return o;
-    }
-
     /**
      * 得到所有定义字段
      */
     private void createExcelField() {
-        this.fields = getFields();
-        this.fields = this.fields.stream().sorted(Comparator.comparing(objects -> ((Excel) objects[1]).sort())).collect(Collectors.toList());
+        this.fields = ExcelColumn.of(clazz, type).stream().sorted(Comparator.comparing(column -> column.getAttr().sort()))
+                .collect(Collectors.toList());
         this.maxHeight = getRowHeight();
     }
 
@@ -996,30 +1112,8 @@ public class ExcelUtil<T> {
      */
     public List<Object[]> getFields() {
         List<Object[]> fields = new ArrayList<Object[]>();
-        List<Field> tempFields = new ArrayList<>();
-        tempFields.addAll(Arrays.asList(clazz.getSuperclass().getDeclaredFields()));
-        tempFields.addAll(Arrays.asList(clazz.getDeclaredFields()));
-        for (Field field : tempFields) {
-            // 单注解
-            if (field.isAnnotationPresent(Excel.class)) {
-                Excel attr = field.getAnnotation(Excel.class);
-                if (attr != null && (attr.type() == Type.ALL || attr.type() == type)) {
-                    field.setAccessible(true);
-                    fields.add(new Object[]{field, attr});
-                }
-            }
-
-            // 多注解
-            if (field.isAnnotationPresent(Excels.class)) {
-                Excels attrs = field.getAnnotation(Excels.class);
-                Excel[] excels = attrs.value();
-                for (Excel attr : excels) {
-                    if (attr != null && (attr.type() == Type.ALL || attr.type() == type)) {
-                        field.setAccessible(true);
-                        fields.add(new Object[]{field, attr});
-                    }
-                }
-            }
+        for (ExcelColumn column : ExcelColumn.of(clazz, type)) {
+            fields.add(new Object[]{column.getField(), column.getAttr()});
         }
         return fields;
     }
@@ -1029,8 +1123,8 @@ public class ExcelUtil<T> {
      */
     public short getRowHeight() {
         double maxHeight = 0;
-        for (Object[] os : this.fields) {
-            Excel excel = (Excel) os[1];
+        for (ExcelColumn column : this.fields) {
+            Excel excel = column.getAttr();
             maxHeight = maxHeight > excel.height() ? maxHeight : excel.height();
         }
         return (short) (maxHeight * 20);
@@ -135,30 +135,7 @@ public class ReflectUtils {
             // 类型转换（将参数数据类型转换为目标方法参数类型）
             Class<?>[] cs = method.getParameterTypes();
             for (int i = 0; i < cs.length; i++) {
-                if (args[i] != null && !args[i].getClass().equals(cs[i])) {
-                    if (cs[i] == String.class) {
-                        args[i] = Convert.toStr(args[i]);
-                        if (StringUtils.endsWith((String) args[i], ".0")) {
-                            args[i] = StringUtils.substringBefore((String) args[i], ".0");
-                        }
-                    } else if (cs[i] == Integer.class) {
-                        args[i] = Convert.toInt(args[i]);
-                    } else if (cs[i] == Long.class) {
-                        args[i] = Convert.toLong(args[i]);
-                    } else if (cs[i] == Double.class) {
-                        args[i] = Convert.toDouble(args[i]);
-                    } else if (cs[i] == Float.class) {
-                        args[i] = Convert.toFloat(args[i]);
-                    } else if (cs[i] == Date.class) {
-                        if (args[i] instanceof String) {
-                            args[i] = DateUtils.parseDate(args[i]);
-                        } else {
-                            args[i] = DateUtil.getJavaDate((Double) args[i]);
-                        }
-                    } else if (cs[i] == boolean.class || cs[i] == Boolean.class) {
-                        args[i] = Convert.toBool(args[i]);
-                    }
-                }
+                args[i] = convertArgument(args[i], cs[i]);
             }
             return (E) method.invoke(obj, args);
         } catch (Exception e) {
@@ -167,6 +144,42 @@ public class ReflectUtils {
         }
     }
 
+    /**
+     * 将参数转换为目标方法的参数类型
+     *
+     * @param arg  参数
+     * @param type 方法参数类型
+     * @return 转换后的参数
+     */
+    public static Object convertArgument(Object arg, Class<?> type) {
+        if (arg == null || arg.getClass().equals(type)) {
+            return arg;
+        }
+        if (type == String.class) {
+            arg = Convert.toStr(arg);
+            if (StringUtils.endsWith((String) arg, ".0")) {
+                arg = StringUtils.substringBefore((String) arg, ".0");
+            }
+        } else if (type == Integer.class) {
+            arg = Convert.toInt(arg);
+        } else if (type == Long.class) {
+            arg = Convert.toLong(arg);
+        } else if (type == Double.class) {
+            arg = Convert.toDouble(arg);
+        } else if (type == Float.class) {
+            arg = Convert.toFloat(arg);
+        } else if (type == Date.class) {
+            if (arg instanceof String) {
+                arg = DateUtils.parseDate(arg);
+            } else {
+                arg = DateUtil.getJavaDate((Double) arg);
+            }
+        } else if (type == boolean.class || type == Boolean.class) {
+            arg = Convert.toBool(arg);
+        }
+        return arg;
+    }
+
     /**
      * 循环向上转型, 获取对象的DeclaredField, 并强制设置为可访问.
      * 如向上转型到Object仍无法找到, 返回null.
@@ -119,6 +119,21 @@ public final class SpringUtils implements BeanFactoryPostProcessor, ApplicationC
         return StringUtils.isNotEmpty(activeProfiles) ? activeProfiles[0] : null;
     }
 
+    /**
+     * 获取配置项，未配置或应用上下文未初始化时返回默认值
+     *
+     * @param key          配置项key
+     * @param targetType   配置项类型
+     * @param defaultValue 默认值
+     * @return 配置项值
+     */
+    public static <T> T getProperty(String key, Class<T> targetType, T defaultValue) {
+        if (applicationContext == null) {
+            return defaultValue;
+        }
+        return applicationContext.getEnvironment().getProperty(key, targetType, defaultValue);
+    }
+
     @Override
     public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) throws BeansException {
         SpringUtils.beanFactory = beanFactory;
@@ -0,0 +1,84 @@
+package com.ec.common.utils.html;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link HtmlSanitizer} 与 {@link HTMLFilter} 的JMH基准
+ * <p>
+ * 不随单元测试执行，通过 main 方法运行：
+ * {@code mvn -pl common test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.ec.common.utils.html.HtmlSanitizerBenchmark}
+ * </p>
+ *
+ * @author ec
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HtmlSanitizerBenchmark {
+    /**
+     * plain：无尖括号的文本；markup：常见的富文本；comments：大量未闭合注释；attributes：实体密集、引号未闭合的属性
+     */
+    @Param({"plain", "markup", "comments", "attributes"})
+    private String shape;
+
+    private String input;
+
+    @Setup
+    public void setup() {
+        switch (shape) {
+            case "plain":
+                input = repeat("普通的备注文本 plain remark text, 123; ", 100);
+                break;
+            case "markup":
+                input = repeat("<p>段落<b>加粗</b><a href=\"http://example.com\" target=_blank>链接</a>"
+                        + "<img src=\"http://example.com/a.png\" width=10/><script>alert(1)</script></p>", 40);
+                break;
+            case "comments":
+                input = repeat("<!--", 5000);
+                break;
+            default:
+                input = "<a href=\"" + repeat("&#106;&amp;%6a", 2000) + " target='" + repeat("x ", 2000) + ">";
+                break;
+        }
+    }
+
+    @Benchmark
+    public String htmlSanitizer() {
+        return HtmlSanitizer.sanitize(input);
+    }
+
+    @Benchmark
+    public String htmlFilter() {
+        return new HTMLFilter().filter(input);
+    }
+
+    private static String repeat(String s, int times) {
+        StringBuilder sb = new StringBuilder(s.length() * times);
+        for (int i = 0; i < times; i++) {
+            sb.append(s);
+        }
+        return sb.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(HtmlSanitizerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
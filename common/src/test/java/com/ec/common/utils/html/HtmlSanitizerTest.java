@@ -0,0 +1,107 @@
+package com.ec.common.utils.html;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link HtmlSanitizer} 与 {@link HTMLFilter} 默认配置的差异测试
+ * <p>
+ * 除以 '&gt;' 开头的输入外输出必须一致；以 '&gt;' 开头时 HTMLFilter 会漏掉部分 '&gt;' 的转义，
+ * HtmlSanitizer 全部转义，两者只在 '&gt;' 是否转义上不同。
+ * HTMLFilter 因实体超出int范围抛出 NumberFormatException 的输入不参与比较。
+ * </p>
+ *
+ * @author ec
+ */
+class HtmlSanitizerTest {
+    /**
+     * 随机输入的片段，覆盖标签、属性、协议、实体、注释和换行等HTMLFilter的正则分支
+     */
+    private static final String[] FRAGMENTS = {
+            "<", ">", "/", "=", "\"", "'", "&", "#", ";", "%", " ", "\t", "\n", "\r\n", "\r", " ", "\u0085",
+            "a", "b", "x", "1", "on", "--", "<!--", "-->", "&#", "&#106", "&#x6a;", "%6a", "&amp;", "&lt;", "&quot;",
+            "<b>", "</b>", "<B>", "<i>", "</i>", "<em>", "<strong>", "</strong>", "<br/>", "<script>", "alert(1)",
+            "<a href=\"", "<a href='", "</a>", "<img src=", "<IMG SRC=", "target=", "width=1", "alt=\"x\"",
+            "javascript:", "data:", "http://", "mailto:"
+    };
+
+    /**
+     * 固定的输入样本
+     */
+    private static final String[] CORPUS = {
+            "", "plain text", "a < b", "a > b", "<b>bold</b>", "<B>bold", "<script>alert(1)</script>",
+            "<a href=\"javascript:alert(1)\">x</a>", "<a href='http://example.com' target=_blank>x</a>",
+            "<a href=\"&#106;avascript:alert(1)\">x</a>", "<a href=\"%6aavascript:x\">x</a>",
+            "<img src=x onerror=alert(1)>", "<img src=\"http://example.com/a.png\" width=10 height=\"20\" alt='a'/>",
+            "<img src=/\n>", "<img src=http://\r\n>", "<b/>", "<b></b>", "<a href=\"\"></a>", "<i>a<em>b</i>",
+            "<!-- comment --><b>x</b><!-- second -->", "<!-- unclosed <b>x</b>", "<<b>>", "<b<i>>", "x</b>",
+            "&amp;&lt;&gt;&quot;&nbsp;", "<a href=\"&#x6a;&#97;vascript:x\">x</a>", "<a href=\"&foo;&amp;\">x</a>",
+            "<a href=\"//evil.example\">x</a>", "<a href=\"JAVASCRIPT:x\">x</a>", "<strong>\"quoted\"</strong>"
+    };
+
+    @Test
+    void corpusMatchesHtmlFilter() {
+        for (String input : CORPUS) {
+            assertEquals(new HTMLFilter().filter(input), HtmlSanitizer.sanitize(input), input);
+        }
+    }
+
+    @Test
+    void nullAndBracketFreeInputReturnedAsIs() {
+        assertNull(HtmlSanitizer.sanitize(null));
+        String plain = "no brackets & \"quotes\"";
+        assertEquals(plain, HtmlSanitizer.sanitize(plain));
+    }
+
+    /**
+     * 已知差异：以 '&gt;' 开头时 HTMLFilter 的 "^&gt;" 零宽匹配漏掉部分 '&gt;'，HtmlSanitizer 全部转义
+     */
+    @Test
+    void leadingGreaterThanIsAlwaysEscaped() {
+        assertEquals("&gt;>", new HTMLFilter().filter(">>"));
+        assertEquals("&gt;&gt;", HtmlSanitizer.sanitize(">>"));
+        assertEquals("&gt;a>b", new HTMLFilter().filter(">a>b"));
+        assertEquals("&gt;a&gt;b", HtmlSanitizer.sanitize(">a>b"));
+        assertEquals("&gt;>&gt;", new HTMLFilter().filter(">>>"));
+        assertEquals("&gt;&gt;&gt;", HtmlSanitizer.sanitize(">>>"));
+    }
+
+    @Test
+    void randomInputsMatchHtmlFilter() {
+        Random random = new Random(20261019L);
+        int compared = 0;
+        for (int n = 0; n < 200000; n++) {
+            String input = randomInput(random);
+            String expected;
+            try {
+                expected = new HTMLFilter().filter(input);
+            } catch (NumberFormatException e) {
+                // 已知差异：HTMLFilter 对超出int范围的实体抛出异常，HtmlSanitizer 保持原样
+                HtmlSanitizer.sanitize(input);
+                continue;
+            }
+            String actual = HtmlSanitizer.sanitize(input);
+            if (input.startsWith(">")) {
+                assertEquals(expected.replace("&gt;", ">"), actual.replace("&gt;", ">"), input);
+            } else {
+                assertEquals(expected, actual, input);
+            }
+            compared++;
+        }
+        assertTrue(compared > 160000, "compared " + compared);
+    }
+
+    private static String randomInput(Random random) {
+        StringBuilder sb = new StringBuilder();
+        int count = 1 + random.nextInt(12);
+        for (int i = 0; i < count; i++) {
+            sb.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+        }
+        return sb.toString();
+    }
+}
@@ -370,7 +370,8 @@ CREATE TABLE `sys_dept`
     `create_time` datetime    DEFAULT NULL COMMENT '创建时间',
     `update_by`   varchar(64) DEFAULT '' COMMENT '更新者',
     `update_time` datetime    DEFAULT NULL COMMENT '更新时间',
-    PRIMARY KEY (`dept_id`) USING BTREE
+    PRIMARY KEY (`dept_id`) USING BTREE,
+    KEY `idx_ancestors` (`ancestors`) USING BTREE
 ) ENGINE=InnoDB AUTO_INCREMENT=110 DEFAULT CHARSET=utf8mb4 COMMENT='部门表';
 
 -- ----------------------------
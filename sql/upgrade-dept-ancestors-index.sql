@@ -0,0 +1,3 @@
+-- 已有租户库执行：为部门祖级列表添加索引，供移动部门时按祖级前缀查询下级部门使用
+ALTER TABLE `sys_dept`
+    ADD INDEX `idx_ancestors` (`ancestors`) USING BTREE;
@@ -0,0 +1,5 @@
+-- 已有租户库执行：为日志时间字段添加索引，供按时间查询与按月归档使用
+ALTER TABLE `sys_oper_log`
+    ADD INDEX `idx_oper_time` (`oper_time`) USING BTREE;
+ALTER TABLE `sys_logininfor`
+    ADD INDEX `idx_login_time` (`login_time`) USING BTREE;
@@ -1,6 +1,7 @@
 package com.ec.sys.mapper;
 
 import com.ec.sys.domain.SysConfig;
+import org.apache.ibatis.session.ResultHandler;
 
 import java.util.List;
 
@@ -26,6 +27,14 @@ public interface SysConfigMapper {
      */
     public List<SysConfig> selectConfigList(SysConfig config);
 
+    /**
+     * 流式查询参数配置列表（导出）
+     *
+     * @param config  参数配置信息
+     * @param handler 逐行处理查询结果
+     */
+    public void exportConfigList(SysConfig config, ResultHandler<SysConfig> handler);
+
     /**
      * 根据键名查询参数配置信息
      *
@@ -3,6 +3,7 @@ package com.ec.sys.mapper;
 import com.ec.common.core.domain.entity.SysDept;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -37,20 +38,28 @@ public interface SysDeptMapper {
     public SysDept selectDeptById(Long deptId);
 
     /**
-     * 根据ID查询所有子部门
+     * 统计部门ID集合中正常状态的部门数
+     *
+     * @param deptIds 部门ID集合
+     * @return 部门数
+     */
+    public int countNormalDeptByIds(@Param("deptIds") Collection<Long> deptIds);
+
+    /**
+     * 查询全部部门的上下级关系（只含部门ID和父部门ID）
      *
-     * @param deptId 部门ID
      * @return 部门列表
      */
-    public List<SysDept> selectChildrenDeptById(Long deptId);
+    public List<SysDept> selectDeptHierarchy();
 
     /**
-     * 根据ID查询所有子部门（正常状态）
+     * 按祖级列表前缀查询全部下级部门ID
      *
-     * @param deptId 部门ID
-     * @return 子部门数
+     * @param deptId    部门ID
+     * @param ancestors 该部门的祖级列表
+     * @return 下级部门ID列表
      */
-    public int selectNormalChildrenDeptById(Long deptId);
+    public List<Long> selectChildDeptIds(@Param("deptId") Long deptId, @Param("ancestors") String ancestors);
 
     /**
      * 是否存在子节点
@@ -101,12 +110,15 @@ public interface SysDeptMapper {
     public void updateDeptStatusNormal(Long[] deptIds);
 
     /**
-     * 修改子元素关系
+     * 修改子元素关系，将祖级列表的旧前缀替换为新前缀
      *
-     * @param depts 子元素
+     * @param deptIds      子部门ID集合
+     * @param newAncestors 新的祖级列表前缀
+     * @param oldAncestors 旧的祖级列表前缀
      * @return 结果
      */
-    public int updateDeptChildren(@Param("depts") List<SysDept> depts);
+    public int updateDeptChildren(@Param("deptIds") Collection<Long> deptIds, @Param("newAncestors") String newAncestors,
+                                  @Param("oldAncestors") String oldAncestors);
 
     /**
      * 删除部门管理信息
@@ -1,7 +1,9 @@
 package com.ec.sys.mapper;
 
 import com.ec.sys.domain.SysLogininfor;
+import org.apache.ibatis.annotations.Param;
 
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -39,4 +41,35 @@ public interface SysLogininforMapper {
      * @return 结果
      */
     public int cleanLogininfor();
+
+    /**
+     * 查询最早的日志时间
+     *
+     * @return 最早的日志时间
+     */
+    public Date selectLogininforMinTime();
+
+    /**
+     * 按主键顺序查询时间范围内的日志
+     *
+     * @param beginTime 开始时间（包含）
+     * @param endTime   结束时间（不包含）
+     * @param lastId    上一批最后的主键
+     * @param limit     条数
+     * @return 日志集合
+     */
+    public List<SysLogininfor> selectLogininforRange(@Param("beginTime") Date beginTime, @Param("endTime") Date endTime,
+                                          @Param("lastId") Long lastId, @Param("limit") int limit);
+
+    /**
+     * 删除时间范围内已归档的日志
+     *
+     * @param beginTime 开始时间（包含）
+     * @param endTime   结束时间（不包含）
+     * @param maxId     已归档的最大主键
+     * @param limit     条数
+     * @return 结果
+     */
+    public int deleteLogininforRange(@Param("beginTime") Date beginTime, @Param("endTime") Date endTime,
+                                 @Param("maxId") Long maxId, @Param("limit") int limit);
 }
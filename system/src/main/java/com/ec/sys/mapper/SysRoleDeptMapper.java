@@ -1,6 +1,7 @@
 package com.ec.sys.mapper;
 
 import com.ec.sys.domain.SysRoleDept;
+import org.apache.ibatis.annotations.Param;
 
 import java.util.List;
 
@@ -34,6 +35,14 @@ public interface SysRoleDeptMapper {
      */
     public int selectCountRoleDeptByDeptId(Long deptId);
 
+    /**
+     * 查询角色关联的部门ID
+     *
+     * @param roleIds 角色ID列表
+     * @return 部门ID列表
+     */
+    public List<Long> selectDeptIdsByRoleIds(@Param("roleIds") List<Long> roleIds);
+
     /**
      * 批量新增角色部门信息
      *
@@ -41,6 +41,14 @@ public interface SysRoleMapper {
      */
     public List<Long> selectRoleListByUserId(Long userId);
 
+    /**
+     * 根据用户ID获取正常状态的角色ID（升序）
+     *
+     * @param userId 用户ID
+     * @return 角色ID列表
+     */
+    public List<Long> selectActiveRoleIdsByUserId(Long userId);
+
     /**
      * 通过角色ID查询角色
      *
@@ -1,7 +1,9 @@
 package com.ec.sys.mapper;
 
 import com.ec.sys.domain.SysRoleMenu;
+import org.apache.ibatis.annotations.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -26,6 +28,23 @@ public interface SysRoleMenuMapper {
      */
     public int deleteRoleMenuByRoleId(Long roleId);
 
+    /**
+     * 查询角色关联的菜单ID
+     *
+     * @param roleId 角色ID
+     * @return 菜单ID列表
+     */
+    public List<Long> selectMenuIdsByRoleId(Long roleId);
+
+    /**
+     * 删除角色的指定菜单关联
+     *
+     * @param roleId  角色ID
+     * @param menuIds 需要删除的菜单ID
+     * @return 结果
+     */
+    public int deleteRoleMenuByMenuIds(@Param("roleId") Long roleId, @Param("menuIds") Collection<Long> menuIds);
+
     /**
      * 批量删除角色菜单关联信息
      *
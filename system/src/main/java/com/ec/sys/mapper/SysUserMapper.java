@@ -43,6 +43,14 @@ public interface SysUserMapper {
      */
     public SysUser selectUserByUserName(String userName);
 
+    /**
+     * 通过用户名批量查询用户（只查询用户ID和用户名）
+     *
+     * @param userNames 用户名集合
+     * @return 已存在的用户
+     */
+    public List<SysUser> selectUsersByUserNames(List<String> userNames);
+
     /**
      * 通过用户ID查询用户
      *
@@ -59,6 +67,14 @@ public interface SysUserMapper {
      */
     public int insertUser(SysUser user);
 
+    /**
+     * 批量新增用户信息（自增主键回填到userId）
+     *
+     * @param userList 用户信息列表
+     * @return 结果
+     */
+    public int batchInsertUser(List<SysUser> userList);
+
     /**
      * 修改用户信息
      *
@@ -1,7 +1,9 @@
 package com.ec.sys.mapper;
 
 import com.ec.sys.domain.SysUserPost;
+import org.apache.ibatis.annotations.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -18,6 +20,23 @@ public interface SysUserPostMapper {
      */
     public int deleteUserPostByUserId(Long userId);
 
+    /**
+     * 查询用户关联的岗位ID
+     *
+     * @param userId 用户ID
+     * @return 岗位ID列表
+     */
+    public List<Long> selectPostIdsByUserId(Long userId);
+
+    /**
+     * 删除用户的指定岗位关联
+     *
+     * @param userId  用户ID
+     * @param postIds 需要删除的岗位ID
+     * @return 结果
+     */
+    public int deleteUserPostByPostIds(@Param("userId") Long userId, @Param("postIds") Collection<Long> postIds);
+
     /**
      * 通过岗位ID查询岗位使用数量
      *
@@ -3,6 +3,7 @@ package com.ec.sys.mapper;
 import com.ec.sys.domain.SysUserRole;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -19,6 +20,23 @@ public interface SysUserRoleMapper {
      */
     public int deleteUserRoleByUserId(Long userId);
 
+    /**
+     * 查询用户关联的角色ID
+     *
+     * @param userId 用户ID
+     * @return 角色ID列表
+     */
+    public List<Long> selectRoleIdsByUserId(Long userId);
+
+    /**
+     * 删除用户的指定角色关联
+     *
+     * @param userId  用户ID
+     * @param roleIds 需要删除的角色ID
+     * @return 结果
+     */
+    public int deleteUserRoleByRoleIds(@Param("userId") Long userId, @Param("roleIds") Collection<Long> roleIds);
+
     /**
      * 批量删除用户和角色关联
      *
@@ -3,6 +3,7 @@ package com.ec.sys.service;
 import com.ec.sys.domain.SysConfig;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 参数配置 服务层
@@ -41,6 +42,14 @@ public interface ISysConfigService {
      */
     public List<SysConfig> selectConfigList(SysConfig config);
 
+    /**
+     * 逐行查询参数配置列表（导出）
+     *
+     * @param config   参数配置信息
+     * @param consumer 每行数据的处理
+     */
+    public void exportConfigList(SysConfig config, Consumer<SysConfig> consumer);
+
     /**
      * 新增参数配置
      *
@@ -4,6 +4,7 @@ import com.ec.common.core.domain.TreeSelect;
 import com.ec.common.core.domain.entity.SysDept;
 
 import java.util.List;
+import java.util.Set;
 
 /**
  * 部门管理 服务层
@@ -59,6 +60,14 @@ public interface ISysDeptService {
      */
     public int selectNormalChildrenDeptById(Long deptId);
 
+    /**
+     * 查询部门及其全部下级部门的ID
+     *
+     * @param deptId 部门ID
+     * @return 部门ID集合（包含部门本身）
+     */
+    public Set<Long> selectDeptAndChildIds(Long deptId);
+
     /**
      * 是否存在部门子节点
      *
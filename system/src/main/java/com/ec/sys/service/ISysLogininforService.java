@@ -2,6 +2,8 @@ package com.ec.sys.service;
 
 import com.ec.sys.domain.SysLogininfor;
 
+import java.io.IOException;
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -37,4 +39,13 @@ public interface ISysLogininforService {
      * 清空系统登录日志
      */
     public void cleanLogininfor();
+
+    /**
+     * 归档早于截止时间的登录日志，按月导出为压缩文件后从库中删除
+     *
+     * @param tenant  租户
+     * @param endTime 截止时间
+     * @return 归档条数
+     */
+    public int archiveLogininfor(String tenant, Date endTime) throws IOException;
 }
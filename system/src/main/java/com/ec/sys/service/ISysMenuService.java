@@ -62,6 +62,19 @@ public interface ISysMenuService {
      */
     public List<RouterVo> buildMenus(List<SysMenu> menus);
 
+    /**
+     * 根据用户ID查询前端路由（按租户、菜单版本和角色缓存）
+     *
+     * @param userId 用户ID
+     * @return 路由列表
+     */
+    public List<RouterVo> selectRoutersByUserId(Long userId);
+
+    /**
+     * 清除当前租户的路由缓存
+     */
+    public void clearRouterCache();
+
     /**
      * 构建前端所需要树结构
      *
@@ -2,6 +2,8 @@ package com.ec.sys.service;
 
 import com.ec.sys.domain.SysOperLog;
 
+import java.io.IOException;
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -17,6 +19,14 @@ public interface ISysOperLogService {
      */
     public void insertOperlog(SysOperLog operLog);
 
+    /**
+     * 批量新增操作日志
+     *
+     * @param operLogList 操作日志列表
+     * @return 结果
+     */
+    public int batchOperlog(List<SysOperLog> operLogList);
+
     /**
      * 查询系统操作日志集合
      *
@@ -45,4 +55,13 @@ public interface ISysOperLogService {
      * 清空操作日志
      */
     public void cleanOperLog();
+
+    /**
+     * 归档早于截止时间的操作日志，按月导出为压缩文件后从库中删除
+     *
+     * @param tenant  租户
+     * @param endTime 截止时间
+     * @return 归档条数
+     */
+    public int archiveOperLog(String tenant, Date endTime) throws IOException;
 }
@@ -51,6 +51,19 @@ public interface ISysRoleService {
      */
     public List<Long> selectRoleListByUserId(Long userId);
 
+    /**
+     * 查询角色自定数据权限的部门ID
+     *
+     * @param roleIds 角色ID列表
+     * @return 部门ID集合
+     */
+    public Set<Long> selectDeptIdsByRoleIds(List<Long> roleIds);
+
+    /**
+     * 清除当前租户已解析的数据权限
+     */
+    public void clearDataScopeCache();
+
     /**
      * 通过角色ID查询角色
      *
@@ -1,5 +1,6 @@
 package com.ec.sys.service;
 
+import com.ec.common.core.domain.ImportResult;
 import com.ec.common.core.domain.entity.SysUser;
 
 import java.util.List;
@@ -203,4 +204,14 @@ public interface ISysUserService {
      * @return 结果
      */
     public String importUser(List<SysUser> userList, Boolean isUpdateSupport, String operName);
+
+    /**
+     * 导入用户数据，返回每行的导入结果
+     *
+     * @param userList        用户数据列表
+     * @param isUpdateSupport 是否更新支持，如果已存在，则进行更新数据
+     * @param operName        操作用户
+     * @return 导入结果
+     */
+    public ImportResult importUserResult(List<SysUser> userList, Boolean isUpdateSupport, String operName);
 }
@@ -0,0 +1,336 @@
+package com.ec.sys.service.impl;
+
+import com.ec.common.core.domain.BaseEntity;
+import com.ec.common.exception.ServiceException;
+import com.ec.common.utils.DateUtils;
+import com.ec.common.utils.SecurityUtils;
+import com.ec.common.utils.StringUtils;
+import com.ec.common.utils.file.LogArchiveUtils;
+import com.github.pagehelper.Page;
+import com.github.pagehelper.PageHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 日志按月归档与查询支持
+ * <p>
+ * 库中只保留保留期内的日志，保留期之前的日志按月导出为压缩归档文件后分批删除；
+ * 再次归档时从该月已归档的最大主键之后继续，上次归档后未删完的记录直接删除，不会重复归档；
+ * 查询条件的开始时间早于库中数据时，合并查询库与归档文件，分页参数沿用PageHelper。
+ * 合并结果按时间倒序（库中记录在前），归档文件逐行流式读取，只保留当前页的记录；
+ * 整月且无其他条件时总数取自归档文件的记录数索引，不必读取文件。
+ * </p>
+ *
+ * @author ec
+ */
+abstract class LogArchiveSupport<T extends BaseEntity> {
+    private static final Logger log = LoggerFactory.getLogger(LogArchiveSupport.class);
+
+    /**
+     * 每批导出/删除的记录数
+     */
+    private static final int BATCH_SIZE = 1000;
+
+    /**
+     * 不分页查询（如导出）时最多合并的归档记录数
+     */
+    private static final int MAX_UNPAGED_ARCHIVE_ROWS = 10000;
+
+    private final String table;
+
+    private final String idColumn;
+
+    private final String timeColumn;
+
+    private final Class<T> clazz;
+
+    LogArchiveSupport(String table, String idColumn, String timeColumn, Class<T> clazz) {
+        this.table = table;
+        this.idColumn = idColumn;
+        this.timeColumn = timeColumn;
+        this.clazz = clazz;
+    }
+
+    /**
+     * 库中最早的日志时间
+     */
+    protected abstract Date selectMinTime();
+
+    /**
+     * 按主键顺序查询时间范围内、主键大于lastId的日志
+     */
+    protected abstract List<T> selectRange(Date beginTime, Date endTime, Long lastId, int limit);
+
+    /**
+     * 删除时间范围内、主键不大于maxId的日志
+     */
+    protected abstract int deleteRange(Date beginTime, Date endTime, Long maxId, int limit);
+
+    /**
+     * 在库中查询
+     */
+    protected abstract List<T> selectFromDb(T query);
+
+    /**
+     * 归档记录是否满足查询条件（与库中查询条件一致，时间条件由本类处理）
+     */
+    protected abstract boolean matches(T row, T query);
+
+    /**
+     * 查询是否带有时间以外的条件
+     */
+    protected abstract boolean hasCondition(T query);
+
+    protected abstract Long getId(T row);
+
+    protected abstract Date getTime(T row);
+
+    /**
+     * 归档早于截止时间的日志
+     *
+     * @param tenant  租户
+     * @param endTime 截止时间
+     * @return 归档条数
+     */
+    public int archive(String tenant, Date endTime) throws IOException {
+        int total = 0;
+        Date minTime = selectMinTime();
+        while (minTime != null && minTime.before(endTime)) {
+            Date monthBegin = DateUtils.truncate(minTime, Calendar.MONTH);
+            Date monthEnd = DateUtils.addMonths(monthBegin, 1);
+            if (monthEnd.after(endTime)) {
+                monthEnd = endTime;
+            }
+            String month = DateUtils.parseDateToStr(DateUtils.YYYY_MM, monthBegin);
+            long lastId = LogArchiveUtils.maxId(tenant, table, month);
+            int deleted = 0;
+            if (lastId > 0) {
+                // 上次归档文件已提交但未删完的记录
+                deleted += deleteArchived(monthBegin, monthEnd, lastId);
+            }
+            int count = 0;
+            try (LogArchiveUtils.ArchiveWriter writer = LogArchiveUtils.newWriter(tenant, table, month)) {
+                List<T> rows;
+                do {
+                    rows = selectRange(monthBegin, monthEnd, lastId, BATCH_SIZE);
+                    for (T row : rows) {
+                        writer.write(row);
+                        lastId = getId(row);
+                    }
+                    count += rows.size();
+                } while (rows.size() == BATCH_SIZE);
+                if (count > 0) {
+                    writer.commit(lastId);
+                }
+            }
+            // 归档文件提交后再分批删除
+            if (count > 0) {
+                deleted += deleteArchived(monthBegin, monthEnd, lastId);
+            }
+            total += count;
+            log.info("租户'{}'归档{} {}月 {}条，删除{}条", tenant, table, month, count, deleted);
+            Date next = selectMinTime();
+            if (deleted == 0 || (next != null && !next.after(minTime))) {
+                break;
+            }
+            minTime = next;
+        }
+        return total;
+    }
+
+    /**
+     * 分批删除时间范围内、主键不大于maxId的已归档日志，每批为一个短事务
+     *
+     * @return 删除条数
+     */
+    private int deleteArchived(Date beginTime, Date endTime, long maxId) {
+        int total = 0;
+        int deleted;
+        do {
+            deleted = deleteRange(beginTime, endTime, maxId, BATCH_SIZE);
+            total += deleted;
+        } while (deleted > 0);
+        return total;
+    }
+
+    /**
+     * 查询日志，开始时间覆盖已归档月份时合并归档记录（库中记录在前，均按时间倒序）
+     *
+     * @param query 查询条件
+     * @return 日志集合
+     */
+    public List<T> selectList(T query) {
+        String tenant = currentTenant();
+        Date beginTime = DateUtils.parseDate(query.getParams().get("beginTime"));
+        Date endTime = DateUtils.parseDate(query.getParams().get("endTime"));
+        List<String> months = tenant == null || beginTime == null ? null : archivedMonths(tenant, beginTime, endTime);
+        if (StringUtils.isEmpty(months)) {
+            return selectFromDb(query);
+        }
+
+        Page<Object> localPage = PageHelper.getLocalPage();
+        PageHelper.clearPage();
+        String orderBy = localPage == null ? null : localPage.getOrderBy();
+        checkOrderBy(orderBy);
+        boolean paged = localPage != null && localPage.getPageSize() > 0;
+        List<T> dbRows;
+        long dbTotal;
+        if (paged) {
+            PageHelper.startPage(localPage.getPageNum(), localPage.getPageSize(), orderBy).setReasonable(false);
+            Page<T> page = (Page<T>) selectFromDb(query);
+            dbRows = page;
+            dbTotal = page.getTotal();
+        } else {
+            if (StringUtils.isNotEmpty(orderBy)) {
+                PageHelper.orderBy(orderBy);
+            }
+            dbRows = selectFromDb(query);
+            dbTotal = dbRows.size();
+        }
+
+        // 归档记录在合并结果中排在库中记录之后，skip为需跳过的归档记录数，need为本页还需的归档记录数
+        long skip = paged ? Math.max(0, (long) (localPage.getPageNum() - 1) * localPage.getPageSize() - dbTotal) : 0;
+        long need = paged ? localPage.getPageSize() - dbRows.size() : Long.MAX_VALUE;
+        Page<T> result = paged ? new Page<>(localPage.getPageNum(), localPage.getPageSize()) : new Page<>();
+        result.addAll(dbRows);
+        long archiveTotal = 0;
+        Date endExclusive = endTime == null ? null : DateUtils.addDays(DateUtils.truncate(endTime, Calendar.DATE), 1);
+        Date beginInclusive = DateUtils.truncate(beginTime, Calendar.DATE);
+        boolean filtered = hasCondition(query);
+        for (String month : months) {
+            Date monthBegin = DateUtils.parseDate(month);
+            Date monthEnd = DateUtils.addMonths(monthBegin, 1);
+            // 整月在时间范围内且没有其他条件时，直接按行号读取，不必逐条判断
+            boolean whole = !filtered && !monthBegin.before(beginInclusive)
+                    && (endExclusive == null || !monthEnd.after(endExclusive));
+            try {
+                long count = whole ? LogArchiveUtils.countMonth(tenant, table, month)
+                        : countMatches(tenant, month, query, beginInclusive, endExclusive);
+                archiveTotal += count;
+                if (!paged && archiveTotal > MAX_UNPAGED_ARCHIVE_ROWS) {
+                    throw new ServiceException("查询包含的归档日志超过" + MAX_UNPAGED_ARCHIVE_ROWS + "条，请缩小时间范围");
+                }
+                long want = need - (result.size() - dbRows.size());
+                if (want > 0 && skip < count) {
+                    // 倒序中的 [skip, skip + want) 对应月内正序的 [from, to)
+                    long to = count - skip;
+                    long from = Math.max(0, to - want);
+                    List<T> rows = whole ? readRange(tenant, month, from, to)
+                            : readMatches(tenant, month, query, beginInclusive, endExclusive, from, to);
+                    Collections.reverse(rows);
+                    result.addAll(rows);
+                }
+                skip = Math.max(0, skip - count);
+            } catch (IOException e) {
+                log.error("读取归档文件失败 {} {} {}", tenant, table, month, e);
+            }
+        }
+        result.setTotal(dbTotal + archiveTotal);
+        return result;
+    }
+
+    /**
+     * 包含归档时只支持默认的时间倒序，其他排序无法与归档记录正确合并
+     */
+    private void checkOrderBy(String orderBy) {
+        if (StringUtils.isEmpty(orderBy)) {
+            return;
+        }
+        String normalized = orderBy.trim().replaceAll("\\s+", " ").toLowerCase();
+        if (!normalized.equals(idColumn + " desc") && !normalized.equals(timeColumn + " desc")) {
+            throw new ServiceException("查询包含归档日志时只支持按时间倒序排列");
+        }
+    }
+
+    /**
+     * 归档记录是否满足时间范围和查询条件
+     */
+    private boolean accept(T row, T query, Date beginInclusive, Date endExclusive) {
+        Date time = getTime(row);
+        return time != null && !time.before(beginInclusive) && (endExclusive == null || time.before(endExclusive))
+                && matches(row, query);
+    }
+
+    /**
+     * 统计某月份满足条件的归档记录数
+     */
+    private long countMatches(String tenant, String month, T query, Date beginInclusive, Date endExclusive)
+            throws IOException {
+        long[] count = new long[1];
+        LogArchiveUtils.readMonth(tenant, table, month, clazz, 0, row -> {
+            if (accept(row, query, beginInclusive, endExclusive)) {
+                count[0]++;
+            }
+            return true;
+        });
+        return count[0];
+    }
+
+    /**
+     * 读取某月份正序第 [from, to) 条归档记录
+     */
+    private List<T> readRange(String tenant, String month, long from, long to) throws IOException {
+        List<T> rows = new ArrayList<>((int) (to - from));
+        LogArchiveUtils.readMonth(tenant, table, month, clazz, from, row -> {
+            rows.add(row);
+            return rows.size() < to - from;
+        });
+        return rows;
+    }
+
+    /**
+     * 读取某月份满足条件的正序第 [from, to) 条归档记录
+     */
+    private List<T> readMatches(String tenant, String month, T query, Date beginInclusive, Date endExclusive,
+                                long from, long to) throws IOException {
+        List<T> rows = new ArrayList<>((int) (to - from));
+        long[] index = new long[1];
+        LogArchiveUtils.readMonth(tenant, table, month, clazz, 0, row -> {
+            if (accept(row, query, beginInclusive, endExclusive)) {
+                if (index[0] >= from) {
+                    rows.add(row);
+                }
+                index[0]++;
+            }
+            return index[0] < to;
+        });
+        return rows;
+    }
+
+    /**
+     * 与查询时间范围重叠的已归档月份，按时间倒序
+     */
+    private List<String> archivedMonths(String tenant, Date beginTime, Date endTime) {
+        String beginMonth = DateUtils.parseDateToStr(DateUtils.YYYY_MM, beginTime);
+        String endMonth = endTime == null ? null : DateUtils.parseDateToStr(DateUtils.YYYY_MM, endTime);
+        List<String> months = new ArrayList<>();
+        for (String month : LogArchiveUtils.listMonths(tenant, table)) {
+            if (month.compareTo(beginMonth) >= 0 && (endMonth == null || month.compareTo(endMonth) <= 0)) {
+                months.add(month);
+            }
+        }
+        return months;
+    }
+
+    private String currentTenant() {
+        try {
+            return SecurityUtils.getLoginUser().getTenant();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * 模糊匹配，与SQL中 like concat('%', value, '%') 一致
+     */
+    protected static boolean like(String actual, String expected) {
+        return StringUtils.isEmpty(expected) || (actual != null && actual.contains(expected));
+    }
+}
@@ -14,6 +14,7 @@ import org.springframework.stereotype.Service;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 参数配置 服务层实现
@@ -97,6 +98,17 @@ public class SysConfigServiceImpl implements ISysConfigService {
         return configMapper.selectConfigList(config);
     }
 
+    /**
+     * 逐行查询参数配置列表（导出）
+     *
+     * @param config   参数配置信息
+     * @param consumer 每行数据的处理
+     */
+    @Override
+    public void exportConfigList(SysConfig config, Consumer<SysConfig> consumer) {
+        configMapper.exportConfigList(config, context -> consumer.accept(context.getResultObject()));
+    }
+
     /**
      * 新增参数配置
      *
@@ -1,25 +1,38 @@
 package com.ec.sys.service.impl;
 
 import com.ec.common.annotation.DataScope;
+import com.ec.common.constant.Constants;
 import com.ec.common.constant.UserConstants;
 import com.ec.common.core.domain.TreeSelect;
 import com.ec.common.core.domain.entity.SysDept;
 import com.ec.common.core.domain.entity.SysRole;
 import com.ec.common.core.domain.entity.SysUser;
+import com.ec.common.core.redis.RedisCache;
 import com.ec.common.core.text.Convert;
 import com.ec.common.exception.ServiceException;
+import com.ec.common.utils.PageUtils;
 import com.ec.common.utils.SecurityUtils;
 import com.ec.common.utils.StringUtils;
+import com.ec.common.utils.TreeUtils;
 import com.ec.common.utils.spring.SpringUtils;
 import com.ec.sys.mapper.SysDeptMapper;
 import com.ec.sys.mapper.SysRoleMapper;
 import com.ec.sys.service.ISysDeptService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -29,12 +42,25 @@ import java.util.stream.Collectors;
  */
 @Service
 public class SysDeptServiceImpl implements ISysDeptService {
+    /**
+     * 修改子部门祖级列表时每条语句的部门数
+     */
+    private static final int UPDATE_CHILDREN_BATCH_SIZE = 1000;
+
     @Autowired
     private SysDeptMapper deptMapper;
 
     @Autowired
     private SysRoleMapper roleMapper;
 
+    @Autowired
+    private RedisCache redisCache;
+
+    /**
+     * 各租户的部门层级索引
+     */
+    private final Map<String, DeptHierarchy> hierarchies = new ConcurrentHashMap<>();
+
     /**
      * 查询部门管理数据
      *
@@ -55,23 +81,7 @@ public class SysDeptServiceImpl implements ISysDeptService {
      */
     @Override
     public List<SysDept> buildDeptTree(List<SysDept> depts) {
-        List<SysDept> returnList = new ArrayList<SysDept>();
-        List<Long> tempList = new ArrayList<Long>();
-        for (SysDept dept : depts) {
-            tempList.add(dept.getDeptId());
-        }
-        for (Iterator<SysDept> iterator = depts.iterator(); iterator.hasNext(); ) {
-            SysDept dept = (SysDept) iterator.next();
-            // 如果是顶级节点, 遍历该父节点的所有子节点
-            if (!tempList.contains(dept.getParentId())) {
-                recursionFn(depts, dept);
-                returnList.add(dept);
-            }
-        }
-        if (returnList.isEmpty()) {
-            returnList = depts;
-        }
-        return returnList;
+        return TreeUtils.buildTree(depts, SysDept::getDeptId, SysDept::getParentId, SysDept::setChildren);
     }
 
     /**
@@ -117,7 +127,52 @@ public class SysDeptServiceImpl implements ISysDeptService {
      */
     @Override
     public int selectNormalChildrenDeptById(Long deptId) {
-        return deptMapper.selectNormalChildrenDeptById(deptId);
+        Set<Long> childIds = new HashSet<>(selectDeptAndChildIds(deptId));
+        childIds.remove(deptId);
+        return childIds.isEmpty() ? 0 : deptMapper.countNormalDeptByIds(childIds);
+    }
+
+    /**
+     * 查询部门及其全部下级部门的ID
+     * <p>
+     * 部门的上下级关系按租户缓存在内存中，由父部门ID逐层展开得到下级部门，代替 find_in_set(ancestors) 的全表扫描，
+     * SQL 中只需按部门ID集合走主键查询。部门增删改后递增租户的部门版本，各实例在下次使用时发现版本变化后重新加载。
+     * </p>
+     *
+     * @param deptId 部门ID
+     * @return 部门ID集合（包含部门本身）
+     */
+    @Override
+    public Set<Long> selectDeptAndChildIds(Long deptId) {
+        if (deptId == null) {
+            return Collections.emptySet();
+        }
+        return getDeptHierarchy().getDeptAndChildIds(deptId);
+    }
+
+    /**
+     * 获取当前租户的部门层级索引，版本变化时重新加载
+     */
+    private DeptHierarchy getDeptHierarchy() {
+        String tenant = SecurityUtils.getTenant();
+        // 先取版本再加载数据，加载到的数据不会比版本旧
+        long version = Convert.toLong(redisCache.getCacheObject(Constants.SYS_DEPT_VERSION_KEY + tenant), 0L);
+        DeptHierarchy hierarchy = hierarchies.get(tenant);
+        if (hierarchy == null || hierarchy.version != version) {
+            // 可能在分页查询之前调用，加载时不能占用当前线程的分页参数
+            hierarchy = new DeptHierarchy(version, PageUtils.withoutPage(deptMapper::selectDeptHierarchy));
+            hierarchies.put(tenant, hierarchy);
+        }
+        return hierarchy;
+    }
+
+    /**
+     * 递增当前租户的部门版本和数据权限版本，使部门层级索引和已解析的数据权限失效；在事务中调用时于提交后执行
+     */
+    private void clearDeptHierarchy() {
+        String tenant = SecurityUtils.getTenant();
+        redisCache.incrementAfterCommit(Constants.SYS_DEPT_VERSION_KEY + tenant,
+                Constants.SYS_DATA_SCOPE_VERSION_KEY + tenant);
     }
 
     /**
@@ -191,7 +246,9 @@ public class SysDeptServiceImpl implements ISysDeptService {
             throw new ServiceException("部门停用，不允许新增");
         }
         dept.setAncestors(info.getAncestors() + "," + dept.getParentId());
-        return deptMapper.insertDept(dept);
+        int result = deptMapper.insertDept(dept);
+        clearDeptHierarchy();
+        return result;
     }
 
     /**
@@ -201,6 +258,7 @@ public class SysDeptServiceImpl implements ISysDeptService {
      * @return 结果
      */
     @Override
+    @Transactional
     public int updateDept(SysDept dept) {
         SysDept newParentDept = deptMapper.selectDeptById(dept.getParentId());
         SysDept oldDept = deptMapper.selectDeptById(dept.getDeptId());
@@ -208,7 +266,13 @@ public class SysDeptServiceImpl implements ISysDeptService {
             String newAncestors = newParentDept.getAncestors() + "," + newParentDept.getDeptId();
             String oldAncestors = oldDept.getAncestors();
             dept.setAncestors(newAncestors);
-            updateDeptChildren(dept.getDeptId(), newAncestors, oldAncestors);
+            // 上级部门未变化时子部门的祖级列表不变
+            if (!StringUtils.equals(newAncestors, oldAncestors)) {
+                if (selectDeptAndChildIds(dept.getDeptId()).contains(dept.getParentId())) {
+                    throw new ServiceException("修改部门'" + dept.getDeptName() + "'失败，上级部门不能是自己或下级部门");
+                }
+                updateDeptChildren(dept.getDeptId(), newAncestors, oldAncestors);
+            }
         }
         int result = deptMapper.updateDept(dept);
         if (UserConstants.DEPT_NORMAL.equals(dept.getStatus()) && StringUtils.isNotEmpty(dept.getAncestors())
@@ -216,6 +280,7 @@ public class SysDeptServiceImpl implements ISysDeptService {
             // 如果该部门是启用状态，则启用该部门的所有上级部门
             updateParentDeptStatusNormal(dept);
         }
+        clearDeptHierarchy();
         return result;
     }
 
@@ -232,18 +297,23 @@ public class SysDeptServiceImpl implements ISysDeptService {
 
     /**
      * 修改子元素关系
+     * <p>
+     * 下级部门在事务中按祖级列表前缀从数据库查询（不使用各节点缓存的部门层级索引，避免漏掉刚新增或移动的部门），
+     * 数据库中按主键批量把祖级列表的旧前缀替换为新前缀，不再查出整棵子树在内存中逐条替换后用 case when 回写。
+     * </p>
      *
      * @param deptId       被修改的部门ID
      * @param newAncestors 新的父ID集合
      * @param oldAncestors 旧的父ID集合
      */
     public void updateDeptChildren(Long deptId, String newAncestors, String oldAncestors) {
-        List<SysDept> children = deptMapper.selectChildrenDeptById(deptId);
-        for (SysDept child : children) {
-            child.setAncestors(child.getAncestors().replaceFirst(oldAncestors, newAncestors));
+        List<Long> childIds = deptMapper.selectChildDeptIds(deptId, oldAncestors);
+        if (childIds.isEmpty()) {
+            return;
         }
-        if (children.size() > 0) {
-            deptMapper.updateDeptChildren(children);
+        for (int i = 0; i < childIds.size(); i += UPDATE_CHILDREN_BATCH_SIZE) {
+            List<Long> batch = childIds.subList(i, Math.min(i + UPDATE_CHILDREN_BATCH_SIZE, childIds.size()));
+            deptMapper.updateDeptChildren(batch, newAncestors, oldAncestors);
         }
     }
 
@@ -255,42 +325,50 @@ public class SysDeptServiceImpl implements ISysDeptService {
      */
     @Override
     public int deleteDeptById(Long deptId) {
-        return deptMapper.deleteDeptById(deptId);
+        int result = deptMapper.deleteDeptById(deptId);
+        clearDeptHierarchy();
+        return result;
     }
 
     /**
-     * 递归列表
+     * 部门层级快照（部门ID -> 直接下级部门ID），下级部门集合按需展开并缓存
      */
-    private void recursionFn(List<SysDept> list, SysDept t) {
-        // 得到子节点列表
-        List<SysDept> childList = getChildList(list, t);
-        t.setChildren(childList);
-        for (SysDept tChild : childList) {
-            if (hasChild(list, tChild)) {
-                recursionFn(list, tChild);
+    private static class DeptHierarchy {
+        private final long version;
+
+        private final Map<Long, List<Long>> childrenMap;
+
+        private final Map<Long, Set<Long>> deptAndChildIds = new ConcurrentHashMap<>();
+
+        DeptHierarchy(long version, List<SysDept> depts) {
+            this.version = version;
+            this.childrenMap = new HashMap<>(Math.max(16, depts.size() * 4 / 3 + 1));
+            for (SysDept dept : depts) {
+                if (dept.getParentId() != null) {
+                    childrenMap.computeIfAbsent(dept.getParentId(), k -> new ArrayList<>()).add(dept.getDeptId());
+                }
             }
         }
-    }
 
-    /**
-     * 得到子节点列表
-     */
-    private List<SysDept> getChildList(List<SysDept> list, SysDept t) {
-        List<SysDept> tlist = new ArrayList<SysDept>();
-        Iterator<SysDept> it = list.iterator();
-        while (it.hasNext()) {
-            SysDept n = (SysDept) it.next();
-            if (StringUtils.isNotNull(n.getParentId()) && n.getParentId().longValue() == t.getDeptId().longValue()) {
-                tlist.add(n);
-            }
+        Set<Long> getDeptAndChildIds(Long deptId) {
+            return deptAndChildIds.computeIfAbsent(deptId, this::collect);
         }
-        return tlist;
-    }
 
-    /**
-     * 判断是否有子节点
-     */
-    private boolean hasChild(List<SysDept> list, SysDept t) {
-        return getChildList(list, t).size() > 0;
+        private Set<Long> collect(Long deptId) {
+            Set<Long> ids = new LinkedHashSet<>();
+            Deque<Long> stack = new ArrayDeque<>();
+            stack.push(deptId);
+            while (!stack.isEmpty()) {
+                Long id = stack.pop();
+                // 已访问的部门不再展开，数据成环时也能结束
+                if (ids.add(id)) {
+                    List<Long> children = childrenMap.get(id);
+                    if (children != null) {
+                        children.forEach(stack::push);
+                    }
+                }
+            }
+            return Collections.unmodifiableSet(ids);
+        }
     }
 }
@@ -1,11 +1,14 @@
 package com.ec.sys.service.impl;
 
+import com.ec.common.utils.StringUtils;
 import com.ec.sys.domain.SysLogininfor;
 import com.ec.sys.mapper.SysLogininforMapper;
 import com.ec.sys.service.ISysLogininforService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -19,6 +22,51 @@ public class SysLogininforServiceImpl implements ISysLogininforService {
     @Autowired
     private SysLogininforMapper logininforMapper;
 
+    private final LogArchiveSupport<SysLogininfor> archiveSupport = new LogArchiveSupport<SysLogininfor>("sys_logininfor", "info_id", "login_time", SysLogininfor.class) {
+        @Override
+        protected Date selectMinTime() {
+            return logininforMapper.selectLogininforMinTime();
+        }
+
+        @Override
+        protected List<SysLogininfor> selectRange(Date beginTime, Date endTime, Long lastId, int limit) {
+            return logininforMapper.selectLogininforRange(beginTime, endTime, lastId, limit);
+        }
+
+        @Override
+        protected int deleteRange(Date beginTime, Date endTime, Long maxId, int limit) {
+            return logininforMapper.deleteLogininforRange(beginTime, endTime, maxId, limit);
+        }
+
+        @Override
+        protected List<SysLogininfor> selectFromDb(SysLogininfor query) {
+            return logininforMapper.selectLogininforList(query);
+        }
+
+        @Override
+        protected boolean matches(SysLogininfor row, SysLogininfor query) {
+            return like(row.getIpaddr(), query.getIpaddr())
+                    && like(row.getUserName(), query.getUserName())
+                    && (StringUtils.isEmpty(query.getStatus()) || query.getStatus().equals(row.getStatus()));
+        }
+
+        @Override
+        protected boolean hasCondition(SysLogininfor query) {
+            return StringUtils.isNotEmpty(query.getIpaddr()) || StringUtils.isNotEmpty(query.getUserName())
+                    || StringUtils.isNotEmpty(query.getStatus());
+        }
+
+        @Override
+        protected Long getId(SysLogininfor row) {
+            return row.getInfoId();
+        }
+
+        @Override
+        protected Date getTime(SysLogininfor row) {
+            return row.getLoginTime();
+        }
+    };
+
     /**
      * 新增系统登录日志
      *
@@ -37,7 +85,7 @@ public class SysLogininforServiceImpl implements ISysLogininforService {
      */
     @Override
     public List<SysLogininfor> selectLogininforList(SysLogininfor logininfor) {
-        return logininforMapper.selectLogininforList(logininfor);
+        return archiveSupport.selectList(logininfor);
     }
 
     /**
@@ -58,4 +106,16 @@ public class SysLogininforServiceImpl implements ISysLogininforService {
     public void cleanLogininfor() {
         logininforMapper.cleanLogininfor();
     }
+
+    /**
+     * 归档早于截止时间的登录日志，按月导出为压缩文件后从库中删除
+     *
+     * @param tenant  租户
+     * @param endTime 截止时间
+     * @return 归档条数
+     */
+    @Override
+    public int archiveLogininfor(String tenant, Date endTime) throws IOException {
+        return archiveSupport.archive(tenant, endTime);
+    }
 }
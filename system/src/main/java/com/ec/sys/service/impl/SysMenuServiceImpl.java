@@ -6,8 +6,11 @@ import com.ec.common.core.domain.TreeSelect;
 import com.ec.common.core.domain.entity.SysMenu;
 import com.ec.common.core.domain.entity.SysRole;
 import com.ec.common.core.domain.entity.SysUser;
+import com.ec.common.core.redis.RedisCache;
+import com.ec.common.core.text.Convert;
 import com.ec.common.utils.SecurityUtils;
 import com.ec.common.utils.StringUtils;
+import com.ec.common.utils.TreeUtils;
 import com.ec.sys.domain.vo.MetaVo;
 import com.ec.sys.domain.vo.RouterVo;
 import com.ec.sys.mapper.SysMenuMapper;
@@ -18,6 +21,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -29,6 +33,11 @@ import java.util.stream.Collectors;
 public class SysMenuServiceImpl implements ISysMenuService {
     public static final String PREMISSION_STRING = "perms[\"{0}\"]";
 
+    /**
+     * 路由缓存有效期（小时）
+     */
+    private static final int ROUTER_EXPIRE_HOURS = 12;
+
     @Autowired
     private SysMenuMapper menuMapper;
 
@@ -38,6 +47,9 @@ public class SysMenuServiceImpl implements ISysMenuService {
     @Autowired
     private SysRoleMenuMapper roleMenuMapper;
 
+    @Autowired
+    private RedisCache redisCache;
+
     /**
      * 根据用户查询系统菜单列表
      *
@@ -103,6 +115,44 @@ public class SysMenuServiceImpl implements ISysMenuService {
         return getChildPerms(menus, 0);
     }
 
+    /**
+     * 根据用户ID查询前端路由
+     * <p>
+     * 路由只取决于租户、菜单数据和用户正常状态的角色，按 租户 + 菜单版本 + 排序后的角色ID 缓存；
+     * 菜单和角色修改后递增租户的菜单版本，旧版本的缓存不再命中并自然过期。
+     * </p>
+     *
+     * @param userId 用户ID
+     * @return 路由列表
+     */
+    @Override
+    public List<RouterVo> selectRoutersByUserId(Long userId) {
+        String tenant = SecurityUtils.getTenant();
+        String roleKey;
+        if (SecurityUtils.isAdmin(userId)) {
+            roleKey = "admin";
+        } else {
+            roleKey = roleMapper.selectActiveRoleIdsByUserId(userId).stream().map(String::valueOf)
+                    .collect(Collectors.joining(","));
+        }
+        String version = Convert.toStr(redisCache.getCacheObject(Constants.SYS_ROUTER_VERSION_KEY + tenant), "0");
+        String cacheKey = Constants.SYS_ROUTER_KEY + tenant + ":" + version + ":" + roleKey;
+        List<RouterVo> routers = redisCache.getCacheObject(cacheKey);
+        if (routers == null) {
+            routers = buildMenus(selectMenuTreeByUserId(userId));
+            redisCache.setCacheObject(cacheKey, routers, ROUTER_EXPIRE_HOURS, TimeUnit.HOURS);
+        }
+        return routers;
+    }
+
+    /**
+     * 递增当前租户的菜单版本，使路由缓存失效；在事务中调用时于提交后执行
+     */
+    @Override
+    public void clearRouterCache() {
+        redisCache.incrementAfterCommit(Constants.SYS_ROUTER_VERSION_KEY + SecurityUtils.getTenant());
+    }
+
     /**
      * 根据角色ID查询菜单树信息
      *
@@ -174,23 +224,7 @@ public class SysMenuServiceImpl implements ISysMenuService {
      */
     @Override
     public List<SysMenu> buildMenuTree(List<SysMenu> menus) {
-        List<SysMenu> returnList = new ArrayList<SysMenu>();
-        List<Long> tempList = new ArrayList<Long>();
-        for (SysMenu dept : menus) {
-            tempList.add(dept.getMenuId());
-        }
-        for (Iterator<SysMenu> iterator = menus.iterator(); iterator.hasNext(); ) {
-            SysMenu menu = (SysMenu) iterator.next();
-            // 如果是顶级节点, 遍历该父节点的所有子节点
-            if (!tempList.contains(menu.getParentId())) {
-                recursionFn(menus, menu);
-                returnList.add(menu);
-            }
-        }
-        if (returnList.isEmpty()) {
-            returnList = menus;
-        }
-        return returnList;
+        return TreeUtils.buildTree(menus, SysMenu::getMenuId, SysMenu::getParentId, SysMenu::setChildren);
     }
 
     /**
@@ -248,7 +282,9 @@ public class SysMenuServiceImpl implements ISysMenuService {
      */
     @Override
     public int insertMenu(SysMenu menu) {
-        return menuMapper.insertMenu(menu);
+        int rows = menuMapper.insertMenu(menu);
+        clearRouterCache();
+        return rows;
     }
 
     /**
@@ -259,7 +295,9 @@ public class SysMenuServiceImpl implements ISysMenuService {
      */
     @Override
     public int updateMenu(SysMenu menu) {
-        return menuMapper.updateMenu(menu);
+        int rows = menuMapper.updateMenu(menu);
+        clearRouterCache();
+        return rows;
     }
 
     /**
@@ -270,7 +308,9 @@ public class SysMenuServiceImpl implements ISysMenuService {
      */
     @Override
     public int deleteMenuById(Long menuId) {
-        return menuMapper.deleteMenuById(menuId);
+        int rows = menuMapper.deleteMenuById(menuId);
+        clearRouterCache();
+        return rows;
     }
 
     /**
@@ -385,55 +425,7 @@ public class SysMenuServiceImpl implements ISysMenuService {
      * @return String
      */
     public List<SysMenu> getChildPerms(List<SysMenu> list, int parentId) {
-        List<SysMenu> returnList = new ArrayList<SysMenu>();
-        for (Iterator<SysMenu> iterator = list.iterator(); iterator.hasNext(); ) {
-            SysMenu t = (SysMenu) iterator.next();
-            // 一、根据传入的某个父节点ID,遍历该父节点的所有子节点
-            if (t.getParentId() == parentId) {
-                recursionFn(list, t);
-                returnList.add(t);
-            }
-        }
-        return returnList;
-    }
-
-    /**
-     * 递归列表
-     *
-     * @param list
-     * @param t
-     */
-    private void recursionFn(List<SysMenu> list, SysMenu t) {
-        // 得到子节点列表
-        List<SysMenu> childList = getChildList(list, t);
-        t.setChildren(childList);
-        for (SysMenu tChild : childList) {
-            if (hasChild(list, tChild)) {
-                recursionFn(list, tChild);
-            }
-        }
-    }
-
-    /**
-     * 得到子节点列表
-     */
-    private List<SysMenu> getChildList(List<SysMenu> list, SysMenu t) {
-        List<SysMenu> tlist = new ArrayList<SysMenu>();
-        Iterator<SysMenu> it = list.iterator();
-        while (it.hasNext()) {
-            SysMenu n = (SysMenu) it.next();
-            if (n.getParentId().longValue() == t.getMenuId().longValue()) {
-                tlist.add(n);
-            }
-        }
-        return tlist;
-    }
-
-    /**
-     * 判断是否有子节点
-     */
-    private boolean hasChild(List<SysMenu> list, SysMenu t) {
-        return getChildList(list, t).size() > 0 ? true : false;
+        return TreeUtils.buildTree(list, (long) parentId, SysMenu::getMenuId, SysMenu::getParentId, SysMenu::setChildren);
     }
 
     /**
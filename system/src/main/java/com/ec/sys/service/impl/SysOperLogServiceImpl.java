@@ -1,11 +1,15 @@
 package com.ec.sys.service.impl;
 
+import com.ec.common.utils.StringUtils;
 import com.ec.sys.domain.SysOperLog;
 import com.ec.sys.mapper.SysOperLogMapper;
 import com.ec.sys.service.ISysOperLogService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -18,6 +22,54 @@ public class SysOperLogServiceImpl implements ISysOperLogService {
     @Autowired
     private SysOperLogMapper operLogMapper;
 
+    private final LogArchiveSupport<SysOperLog> archiveSupport = new LogArchiveSupport<SysOperLog>("sys_oper_log", "oper_id", "oper_time", SysOperLog.class) {
+        @Override
+        protected Date selectMinTime() {
+            return operLogMapper.selectOperLogMinTime();
+        }
+
+        @Override
+        protected List<SysOperLog> selectRange(Date beginTime, Date endTime, Long lastId, int limit) {
+            return operLogMapper.selectOperLogRange(beginTime, endTime, lastId, limit);
+        }
+
+        @Override
+        protected int deleteRange(Date beginTime, Date endTime, Long maxId, int limit) {
+            return operLogMapper.deleteOperLogRange(beginTime, endTime, maxId, limit);
+        }
+
+        @Override
+        protected List<SysOperLog> selectFromDb(SysOperLog query) {
+            return operLogMapper.selectOperLogList(query);
+        }
+
+        @Override
+        protected boolean matches(SysOperLog row, SysOperLog query) {
+            return like(row.getTitle(), query.getTitle())
+                    && like(row.getOperName(), query.getOperName())
+                    && (query.getBusinessType() == null || query.getBusinessType().equals(row.getBusinessType()))
+                    && (StringUtils.isEmpty(query.getBusinessTypes()) || Arrays.asList(query.getBusinessTypes()).contains(row.getBusinessType()))
+                    && (query.getStatus() == null || query.getStatus().equals(row.getStatus()));
+        }
+
+        @Override
+        protected boolean hasCondition(SysOperLog query) {
+            return StringUtils.isNotEmpty(query.getTitle()) || StringUtils.isNotEmpty(query.getOperName())
+                    || query.getBusinessType() != null || StringUtils.isNotEmpty(query.getBusinessTypes())
+                    || query.getStatus() != null;
+        }
+
+        @Override
+        protected Long getId(SysOperLog row) {
+            return row.getOperId();
+        }
+
+        @Override
+        protected Date getTime(SysOperLog row) {
+            return row.getOperTime();
+        }
+    };
+
     /**
      * 新增操作日志
      *
@@ -28,6 +80,20 @@ public class SysOperLogServiceImpl implements ISysOperLogService {
         operLogMapper.insertOperlog(operLog);
     }
 
+    /**
+     * 批量新增操作日志
+     *
+     * @param operLogList 操作日志列表
+     * @return 结果
+     */
+    @Override
+    public int batchOperlog(List<SysOperLog> operLogList) {
+        if (StringUtils.isEmpty(operLogList)) {
+            return 0;
+        }
+        return operLogMapper.batchOperlog(operLogList);
+    }
+
     /**
      * 查询系统操作日志集合
      *
@@ -36,7 +102,7 @@ public class SysOperLogServiceImpl implements ISysOperLogService {
      */
     @Override
     public List<SysOperLog> selectOperLogList(SysOperLog operLog) {
-        return operLogMapper.selectOperLogList(operLog);
+        return archiveSupport.selectList(operLog);
     }
 
     /**
@@ -68,4 +134,16 @@ public class SysOperLogServiceImpl implements ISysOperLogService {
     public void cleanOperLog() {
         operLogMapper.cleanOperLog();
     }
+
+    /**
+     * 归档早于截止时间的操作日志，按月导出为压缩文件后从库中删除
+     *
+     * @param tenant  租户
+     * @param endTime 截止时间
+     * @return 归档条数
+     */
+    @Override
+    public int archiveOperLog(String tenant, Date endTime) throws IOException {
+        return archiveSupport.archive(tenant, endTime);
+    }
 }
@@ -1,10 +1,13 @@
 package com.ec.sys.service.impl;
 
 import com.ec.common.annotation.DataScope;
+import com.ec.common.constant.Constants;
 import com.ec.common.constant.UserConstants;
 import com.ec.common.core.domain.entity.SysRole;
 import com.ec.common.core.domain.entity.SysUser;
+import com.ec.common.core.redis.RedisCache;
 import com.ec.common.exception.ServiceException;
+import com.ec.common.utils.IdSyncUtils;
 import com.ec.common.utils.SecurityUtils;
 import com.ec.common.utils.StringUtils;
 import com.ec.common.utils.spring.SpringUtils;
@@ -15,6 +18,7 @@ import com.ec.sys.mapper.SysRoleDeptMapper;
 import com.ec.sys.mapper.SysRoleMapper;
 import com.ec.sys.mapper.SysRoleMenuMapper;
 import com.ec.sys.mapper.SysUserRoleMapper;
+import com.ec.sys.service.ISysMenuService;
 import com.ec.sys.service.ISysRoleService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -41,6 +45,12 @@ public class SysRoleServiceImpl implements ISysRoleService {
     @Autowired
     private SysRoleDeptMapper roleDeptMapper;
 
+    @Autowired
+    private ISysMenuService menuService;
+
+    @Autowired
+    private RedisCache redisCache;
+
     /**
      * 根据条件分页查询角色数据
      *
@@ -207,23 +217,27 @@ public class SysRoleServiceImpl implements ISysRoleService {
     public int insertRole(SysRole role) {
         // 新增角色信息
         roleMapper.insertRole(role);
-        return insertRoleMenu(role);
+        int rows = insertRoleMenu(role);
+        menuService.clearRouterCache();
+        return rows;
     }
 
     /**
      * 修改保存角色信息
      *
      * @param role 角色信息
-     * @return 结果
+     * @return 角色信息的修改行数
      */
     @Override
     @Transactional
     public int updateRole(SysRole role) {
         // 修改角色信息
-        roleMapper.updateRole(role);
-        // 删除角色与菜单关联
-        roleMenuMapper.deleteRoleMenuByRoleId(role.getRoleId());
-        return insertRoleMenu(role);
+        int rows = roleMapper.updateRole(role);
+        // 同步角色与菜单关联，菜单有变化时才清除路由缓存
+        if (syncRoleMenu(role.getRoleId(), role.getMenuIds())) {
+            menuService.clearRouterCache();
+        }
+        return rows;
     }
 
     /**
@@ -234,7 +248,9 @@ public class SysRoleServiceImpl implements ISysRoleService {
      */
     @Override
     public int updateRoleStatus(SysRole role) {
-        return roleMapper.updateRole(role);
+        int rows = roleMapper.updateRole(role);
+        menuService.clearRouterCache();
+        return rows;
     }
 
     /**
@@ -251,7 +267,31 @@ public class SysRoleServiceImpl implements ISysRoleService {
         // 删除角色与部门关联
         roleDeptMapper.deleteRoleDeptByRoleId(role.getRoleId());
         // 新增角色和部门信息（数据权限）
-        return insertRoleDept(role);
+        int rows = insertRoleDept(role);
+        clearDataScopeCache();
+        return rows;
+    }
+
+    /**
+     * 查询角色自定数据权限的部门ID
+     *
+     * @param roleIds 角色ID列表
+     * @return 部门ID集合
+     */
+    @Override
+    public Set<Long> selectDeptIdsByRoleIds(List<Long> roleIds) {
+        if (StringUtils.isEmpty(roleIds)) {
+            return Collections.emptySet();
+        }
+        return new HashSet<>(roleDeptMapper.selectDeptIdsByRoleIds(roleIds));
+    }
+
+    /**
+     * 递增当前租户的数据权限版本，使已解析的数据权限失效；在事务中调用时于提交后执行
+     */
+    @Override
+    public void clearDataScopeCache() {
+        redisCache.incrementAfterCommit(Constants.SYS_DATA_SCOPE_VERSION_KEY + SecurityUtils.getTenant());
     }
 
     /**
@@ -275,6 +315,28 @@ public class SysRoleServiceImpl implements ISysRoleService {
         return rows;
     }
 
+    /**
+     * 按差异同步角色菜单，只删除取消的菜单、只新增增加的菜单
+     *
+     * @param roleId  角色ID
+     * @param menuIds 菜单组，为null时保持不变，为空数组时删除全部菜单
+     * @return 菜单是否有变化
+     */
+    private boolean syncRoleMenu(Long roleId, Long[] menuIds) {
+        return IdSyncUtils.sync(roleMenuMapper.selectMenuIdsByRoleId(roleId), menuIds,
+                removed -> roleMenuMapper.deleteRoleMenuByMenuIds(roleId, removed),
+                added -> {
+                    List<SysRoleMenu> list = new ArrayList<SysRoleMenu>();
+                    for (Long menuId : added) {
+                        SysRoleMenu rm = new SysRoleMenu();
+                        rm.setRoleId(roleId);
+                        rm.setMenuId(menuId);
+                        list.add(rm);
+                    }
+                    roleMenuMapper.batchRoleMenu(list);
+                });
+    }
+
     /**
      * 新增角色部门信息(数据权限)
      *
@@ -309,7 +371,10 @@ public class SysRoleServiceImpl implements ISysRoleService {
         roleMenuMapper.deleteRoleMenuByRoleId(roleId);
         // 删除角色与部门关联
         roleDeptMapper.deleteRoleDeptByRoleId(roleId);
-        return roleMapper.deleteRoleById(roleId);
+        int rows = roleMapper.deleteRoleById(roleId);
+        menuService.clearRouterCache();
+        clearDataScopeCache();
+        return rows;
     }
 
     /**
@@ -333,7 +398,10 @@ public class SysRoleServiceImpl implements ISysRoleService {
         roleMenuMapper.deleteRoleMenu(roleIds);
         // 删除角色与部门关联
         roleDeptMapper.deleteRoleDept(roleIds);
-        return roleMapper.deleteRoleByIds(roleIds);
+        int rows = roleMapper.deleteRoleByIds(roleIds);
+        menuService.clearRouterCache();
+        clearDataScopeCache();
+        return rows;
     }
 
     /**
@@ -1,10 +1,12 @@
 package com.ec.sys.service.impl;
 
 import com.ec.common.annotation.DataScope;
+import com.ec.common.core.domain.ImportResult;
 import com.ec.common.constant.UserConstants;
 import com.ec.common.core.domain.entity.SysRole;
 import com.ec.common.core.domain.entity.SysUser;
 import com.ec.common.exception.ServiceException;
+import com.ec.common.utils.IdSyncUtils;
 import com.ec.common.utils.SecurityUtils;
 import com.ec.common.utils.StringUtils;
 import com.ec.common.utils.bean.BeanValidators;
@@ -14,17 +16,23 @@ import com.ec.sys.domain.SysUserPost;
 import com.ec.sys.domain.SysUserRole;
 import com.ec.sys.mapper.*;
 import com.ec.sys.service.ISysConfigService;
+import com.ec.sys.service.ISysDeptService;
 import com.ec.sys.service.ISysUserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.CollectionUtils;
 
 import javax.validation.Validator;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -35,6 +43,12 @@ import java.util.stream.Collectors;
 @Service
 public class SysUserServiceImpl implements ISysUserService {
     private static final Logger log = LoggerFactory.getLogger(SysUserServiceImpl.class);
+
+    /**
+     * 导入用户每批条数
+     */
+    private static final int IMPORT_BATCH_SIZE = 500;
+
     @Autowired
     protected Validator validator;
     @Autowired
@@ -49,6 +63,10 @@ public class SysUserServiceImpl implements ISysUserService {
     private SysUserPostMapper userPostMapper;
     @Autowired
     private ISysConfigService configService;
+    @Autowired
+    private ISysDeptService deptService;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
 
     /**
      * 根据条件分页查询用户列表
@@ -59,6 +77,10 @@ public class SysUserServiceImpl implements ISysUserService {
     @Override
     @DataScope(deptAlias = "d", userAlias = "u")
     public List<SysUser> selectUserList(SysUser user) {
+        if (StringUtils.isNotNull(user.getDeptId()) && user.getDeptId() != 0) {
+            // 部门及下级部门按ID列表过滤
+            user.getParams().put("deptIds", deptService.selectDeptAndChildIds(user.getDeptId()));
+        }
         return userMapper.selectUserList(user);
     }
 
@@ -253,14 +275,10 @@ public class SysUserServiceImpl implements ISysUserService {
     @Transactional
     public int updateUser(SysUser user) {
         Long userId = user.getUserId();
-        // 删除用户与角色关联
-        userRoleMapper.deleteUserRoleByUserId(userId);
-        // 新增用户与角色管理
-        insertUserRole(user);
-        // 删除用户与岗位关联
-        userPostMapper.deleteUserPostByUserId(userId);
-        // 新增用户与岗位管理
-        insertUserPost(user);
+        // 同步用户与角色关联
+        syncUserRole(userId, user.getRoleIds());
+        // 同步用户与岗位关联
+        syncUserPost(userId, user.getPostIds());
         return userMapper.updateUser(user);
     }
 
@@ -273,8 +291,7 @@ public class SysUserServiceImpl implements ISysUserService {
     @Override
     @Transactional
     public void insertUserAuth(Long userId, Long[] roleIds) {
-        userRoleMapper.deleteUserRoleByUserId(userId);
-        insertUserRole(userId, roleIds);
+        syncUserRole(userId, roleIds);
     }
 
     /**
@@ -400,6 +417,39 @@ public class SysUserServiceImpl implements ISysUserService {
         }
     }
 
+    /**
+     * 按差异同步用户角色，只删除取消的角色、只新增增加的角色
+     *
+     * @param userId  用户ID
+     * @param roleIds 角色组，为null时保持不变，为空数组时删除全部角色
+     */
+    private void syncUserRole(Long userId, Long[] roleIds) {
+        IdSyncUtils.sync(userRoleMapper.selectRoleIdsByUserId(userId), roleIds,
+                removed -> userRoleMapper.deleteUserRoleByRoleIds(userId, removed),
+                added -> insertUserRole(userId, added.toArray(new Long[0])));
+    }
+
+    /**
+     * 按差异同步用户岗位，只删除取消的岗位、只新增增加的岗位
+     *
+     * @param userId  用户ID
+     * @param postIds 岗位组，为null时保持不变，为空数组时删除全部岗位
+     */
+    private void syncUserPost(Long userId, Long[] postIds) {
+        IdSyncUtils.sync(userPostMapper.selectPostIdsByUserId(userId), postIds,
+                removed -> userPostMapper.deleteUserPostByPostIds(userId, removed),
+                added -> {
+                    List<SysUserPost> list = new ArrayList<SysUserPost>();
+                    for (Long postId : added) {
+                        SysUserPost up = new SysUserPost();
+                        up.setUserId(userId);
+                        up.setPostId(postId);
+                        list.add(up);
+                    }
+                    userPostMapper.batchUserPost(list);
+                });
+    }
+
     /**
      * 通过用户ID删除用户
      *
@@ -446,40 +496,18 @@ public class SysUserServiceImpl implements ISysUserService {
      */
     @Override
     public String importUser(List<SysUser> userList, Boolean isUpdateSupport, String operName) {
-        if (StringUtils.isNull(userList) || userList.size() == 0) {
-            throw new ServiceException("导入用户数据不能为空！");
-        }
+        ImportResult result = importUserResult(userList, isUpdateSupport, operName);
         int successNum = 0;
         int failureNum = 0;
         StringBuilder successMsg = new StringBuilder();
         StringBuilder failureMsg = new StringBuilder();
-        String password = configService.selectConfigByKey("sys.user.initPassword");
-        for (SysUser user : userList) {
-            try {
-                // 验证是否存在这个用户
-                SysUser u = userMapper.selectUserByUserName(user.getUserName());
-                if (StringUtils.isNull(u)) {
-                    BeanValidators.validateWithException(validator, user);
-                    user.setPassword(SecurityUtils.encryptPassword(password));
-                    user.setCreateBy(operName);
-                    this.insertUser(user);
-                    successNum++;
-                    successMsg.append("<br/>" + successNum + "、账号 " + user.getUserName() + " 导入成功");
-                } else if (isUpdateSupport) {
-                    BeanValidators.validateWithException(validator, user);
-                    user.setUpdateBy(operName);
-                    this.updateUser(user);
-                    successNum++;
-                    successMsg.append("<br/>" + successNum + "、账号 " + user.getUserName() + " 更新成功");
-                } else {
-                    failureNum++;
-                    failureMsg.append("<br/>" + failureNum + "、账号 " + user.getUserName() + " 已存在");
-                }
-            } catch (Exception e) {
+        for (ImportResult.Row row : result.getRows()) {
+            if (row.isSuccess()) {
+                successNum++;
+                successMsg.append("<br/>" + successNum + "、账号 " + row.getKey() + " " + row.getMessage());
+            } else {
                 failureNum++;
-                String msg = "<br/>" + failureNum + "、账号 " + user.getUserName() + " 导入失败：";
-                failureMsg.append(msg + e.getMessage());
-                log.error(msg, e);
+                failureMsg.append("<br/>" + failureNum + "、账号 " + row.getKey() + " " + row.getMessage());
             }
         }
         if (failureNum > 0) {
@@ -490,4 +518,185 @@ public class SysUserServiceImpl implements ISysUserService {
         }
         return successMsg.toString();
     }
+
+    /**
+     * 导入用户数据，返回每行的导入结果
+     * <p>
+     * 按批处理：每批一次查询已存在的账号，新增用户多行插入，角色、岗位关联合并插入，每批一个事务；
+     * 批量写入失败时该批逐行重试，以便定位失败的行。
+     * </p>
+     *
+     * @param userList        用户数据列表
+     * @param isUpdateSupport 是否更新支持，如果已存在，则进行更新数据
+     * @param operName        操作用户
+     * @return 导入结果
+     */
+    @Override
+    public ImportResult importUserResult(List<SysUser> userList, Boolean isUpdateSupport, String operName) {
+        if (StringUtils.isNull(userList) || userList.size() == 0) {
+            throw new ServiceException("导入用户数据不能为空！");
+        }
+        // 导入的用户使用同一个初始密码，只需加密一次
+        String password = SecurityUtils.encryptPassword(configService.selectConfigByKey("sys.user.initPassword"));
+        ImportResult result = new ImportResult();
+        Set<String> imported = new HashSet<>();
+        for (int from = 0; from < userList.size(); from += IMPORT_BATCH_SIZE) {
+            int to = Math.min(from + IMPORT_BATCH_SIZE, userList.size());
+            importUserBatch(userList.subList(from, to), from, Boolean.TRUE.equals(isUpdateSupport), operName,
+                    password, imported, result);
+        }
+        return result;
+    }
+
+    /**
+     * 导入一批用户
+     *
+     * @param offset   该批第一行在导入数据中的下标
+     * @param imported 已处理过的账号，用于检查导入数据中的重复账号
+     */
+    private void importUserBatch(List<SysUser> batch, int offset, boolean isUpdateSupport,
+                                 String operName, String password, Set<String> imported, ImportResult result) {
+        // 批量查询已存在的账号
+        List<String> userNames = batch.stream().map(SysUser::getUserName).filter(StringUtils::isNotEmpty)
+                .distinct().collect(Collectors.toList());
+        Map<String, Long> existUsers = new HashMap<>();
+        if (!userNames.isEmpty()) {
+            for (SysUser u : userMapper.selectUsersByUserNames(userNames)) {
+                existUsers.put(u.getUserName(), u.getUserId());
+            }
+        }
+
+        String[] messages = new String[batch.size()];
+        boolean[] success = new boolean[batch.size()];
+        List<Integer> pending = new ArrayList<>();
+        List<SysUser> inserts = new ArrayList<>();
+        List<SysUser> updates = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            SysUser user = batch.get(i);
+            Long existUserId = existUsers.get(user.getUserName());
+            if (existUserId != null && !isUpdateSupport) {
+                messages[i] = "已存在";
+                continue;
+            }
+            try {
+                BeanValidators.validateWithException(validator, user);
+            } catch (Exception e) {
+                messages[i] = "导入失败：" + e.getMessage();
+                log.error("账号 " + user.getUserName() + " 导入失败：", e);
+                continue;
+            }
+            if (!imported.add(user.getUserName())) {
+                messages[i] = "导入失败：导入数据中账号重复";
+                continue;
+            }
+            if (existUserId == null) {
+                user.setPassword(password);
+                user.setCreateBy(operName);
+                inserts.add(user);
+            } else {
+                if (StringUtils.isNull(user.getUserId())) {
+                    user.setUserId(existUserId);
+                }
+                user.setUpdateBy(operName);
+                updates.add(user);
+            }
+            pending.add(i);
+        }
+
+        if (!pending.isEmpty()) {
+            // 记录导入前没有用户ID的行，批量写入回滚后需清除回填的自增ID
+            boolean[] generatedId = new boolean[batch.size()];
+            for (int i : pending) {
+                SysUser user = batch.get(i);
+                generatedId[i] = existUsers.get(user.getUserName()) == null
+                        && (user.getUserId() == null || user.getUserId() == 0);
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> saveImportUsers(inserts, updates));
+                for (int i : pending) {
+                    success[i] = true;
+                }
+            } catch (Exception e) {
+                log.warn("批量导入用户失败，逐行重试: {}", e.getMessage());
+                for (int i : pending) {
+                    SysUser user = batch.get(i);
+                    try {
+                        if (existUsers.get(user.getUserName()) == null) {
+                            if (generatedId[i]) {
+                                user.setUserId(null);
+                            }
+                            transactionTemplate.executeWithoutResult(status -> insertUser(user));
+                        } else {
+                            // 导入行不携带角色、岗位，只更新用户信息，保留原有关联
+                            transactionTemplate.executeWithoutResult(status -> userMapper.updateUser(user));
+                        }
+                        success[i] = true;
+                    } catch (Exception ex) {
+                        messages[i] = "导入失败：" + ex.getMessage();
+                        log.error("账号 " + user.getUserName() + " 导入失败：", ex);
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            SysUser user = batch.get(i);
+            if (success[i]) {
+                result.success(offset + i + 1, user.getUserName(),
+                        existUsers.containsKey(user.getUserName()) ? "更新成功" : "导入成功");
+            } else {
+                result.failure(offset + i + 1, user.getUserName(), messages[i]);
+            }
+        }
+    }
+
+    /**
+     * 保存一批导入的用户：没有指定用户ID的新增用户多行插入，角色、岗位关联各一次插入；已存在的用户只更新用户信息；需在事务中调用
+     *
+     * @param inserts 新增的用户
+     * @param updates 更新的用户
+     */
+    private void saveImportUsers(List<SysUser> inserts, List<SysUser> updates) {
+        List<SysUser> generated = new ArrayList<>();
+        for (SysUser user : inserts) {
+            if (user.getUserId() == null || user.getUserId() == 0) {
+                generated.add(user);
+            } else {
+                userMapper.insertUser(user);
+            }
+        }
+        if (!generated.isEmpty()) {
+            userMapper.batchInsertUser(generated);
+        }
+        List<SysUserRole> userRoles = new ArrayList<>();
+        List<SysUserPost> userPosts = new ArrayList<>();
+        for (SysUser user : inserts) {
+            if (StringUtils.isNotNull(user.getRoleIds())) {
+                for (Long roleId : user.getRoleIds()) {
+                    SysUserRole ur = new SysUserRole();
+                    ur.setUserId(user.getUserId());
+                    ur.setRoleId(roleId);
+                    userRoles.add(ur);
+                }
+            }
+            if (StringUtils.isNotNull(user.getPostIds())) {
+                for (Long postId : user.getPostIds()) {
+                    SysUserPost up = new SysUserPost();
+                    up.setUserId(user.getUserId());
+                    up.setPostId(postId);
+                    userPosts.add(up);
+                }
+            }
+        }
+        if (!userRoles.isEmpty()) {
+            userRoleMapper.batchUserRole(userRoles);
+        }
+        if (!userPosts.isEmpty()) {
+            userPostMapper.batchUserPost(userPosts);
+        }
+        // 导入行不携带角色、岗位，更新时只写用户信息，保留原有关联
+        for (SysUser user : updates) {
+            userMapper.updateUser(user);
+        }
+    }
 }